@@ -11,7 +11,8 @@ import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.grishko188.library.MaskFormatter;
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatters;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
@@ -35,7 +36,7 @@ public class StaticFormattingFragment extends Fragment {
     @BindView(R.id.clean_text)
     TextView mCleanText;
 
-    private MaskFormatter mFormatter = MaskFormatter.single();
+    private CompiledMask mMask;
 
     public static StaticFormattingFragment getInstance() {
         return new StaticFormattingFragment();
@@ -55,13 +56,12 @@ public class StaticFormattingFragment extends Fragment {
             Toast.makeText(getActivity(), "Enter the mask!", Toast.LENGTH_SHORT).show();
         }
         mTextInput.setText(null);
-        mFormatter.symbol(MaskFormatter.EMPTY)
-                .mask(mMaskInput.getText().toString());
+        mMask = MaskFormatters.cache().get(mMaskInput.getText().toString());
     }
 
     @OnClick(R.id.format)
     void onFormat() {
-        if (TextUtils.isEmpty(mFormatter.getMask())) {
+        if (mMask == null || TextUtils.isEmpty(mMask.getMask())) {
             Toast.makeText(getActivity(), "Enter the mask!", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -69,8 +69,8 @@ public class StaticFormattingFragment extends Fragment {
             Toast.makeText(getActivity(), "Enter the text", Toast.LENGTH_SHORT).show();
             return;
         }
-        String formattedText = mFormatter.format(mTextInput.getText().toString());
+        String formattedText = mMask.format(mTextInput.getText().toString());
         mFormattedText.setText(getString(R.string.formatted_label, formattedText));
-        mCleanText.setText(getString(R.string.clean_label, mFormatter.clearStatic(formattedText)));
+        mCleanText.setText(getString(R.string.clean_label, mMask.clearStatic(formattedText)));
     }
 }
@@ -1,6 +1,7 @@
 package com.grishko188.library;
 
 import android.os.Handler;
+import android.support.annotation.Nullable;
 import android.text.Editable;
 import android.text.InputFilter;
 import android.text.Selection;
@@ -8,6 +9,8 @@ import android.text.Spanned;
 import android.text.TextUtils;
 import android.text.TextWatcher;
 
+import java.nio.CharBuffer;
+
 /**
  * Watches a {@link android.widget.TextView} and format input with the given mask and replacement char.
  * Formatting and clearing  presented by {@link MaskFormatter#format(String)} and {@link MaskFormatter#clear(String)}
@@ -18,9 +21,9 @@ import android.text.TextWatcher;
  * <li>Letters</li>
  * <li>Digits</li>
  * </ul>
+ * If mask declares slot classes (see {@link MaskFormatter#slot(char, SlotClass)}), only chars accepted by the mask slots are allowed.
  * Known issues:
  * <ul>
- * <li>Do not use the mask type ####z ( any letter or number after replacement sequence without space after last replacement char)</li>
  * <li>Do not use the mask type #### #### #### z ( any characters after replacement sequence in the end of mask) with EditText formatting(you will have troubles with removing), but works fine for static formatting</li>
  * </ul>
  *
@@ -29,29 +32,66 @@ import android.text.TextWatcher;
  */
 public class MaskTextWatcher implements TextWatcher {
 
-    private MaskFormatter mFormatter;
+    private TextFormatter mFormatter;
+
+    private MaskSelector mSelector;
 
     private boolean mSelfChange;
 
-    private MaskFormatter.PrefixConfig mPrefixConfig;
+    private FormatterMetrics mMetrics;
+
+    private IncrementalFormatter mIncrementalFormatter;
+    private int mEditStart;
+    private int mEditBefore;
+    private int mEditCount;
+
+    private boolean mCoalesceEdits;
+    private Editable mPendingEdit;
+
+    /**
+     * Buffers of clear and formatted text, reused by every edit
+     */
+    private char[] mClearBuffer = new char[16];
+    private CharBuffer mClearView = CharBuffer.wrap(mClearBuffer);
+    private final StringBuilder mFormattedBuffer = new StringBuilder();
 
     private static final Handler HANDLER = new Handler();
 
-    private static final MaskInputFilter ALLOWED_CHARS_FILTER = new MaskInputFilter();
+    private static final InputFilter[] NO_FILTERS = new InputFilter[0];
+
+    private final MaskInputFilter mAllowedCharsFilter = new MaskInputFilter();
+    private final InputFilter[] mAllowedFilters = new InputFilter[]{mAllowedCharsFilter};
+
+    private final Runnable mFlushPendingEdit = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingEdit();
+        }
+    };
 
-    public MaskTextWatcher(MaskFormatter formatter) {
+    /**
+     * Creates text watcher with the given formatter: configured {@link MaskFormatter}, {@link CompiledMask}
+     * or formatter generated for {@link Mask} constant
+     */
+    public MaskTextWatcher(TextFormatter formatter) {
         this.mFormatter = formatter;
-        initPrefixConfiguration();
+    }
+
+    /**
+     * Creates text watcher, which switches formatters of selector as the user types, like {@link MaskRegistry} or {@link MaskRangeRegistry}.
+     * Formatter is selected by the text before formatting, see {@link MaskSelector#find(CharSequence)}
+     */
+    public MaskTextWatcher(MaskSelector selector) {
+        this.mSelector = selector;
+        this.mFormatter = selector.find(null);
     }
 
     public MaskTextWatcher(String mask) {
         initFormatter(mask, MaskFormatter.EMPTY);
-        initPrefixConfiguration();
     }
 
     public MaskTextWatcher(String mask, char symbol) {
         initFormatter(mask, symbol);
-        initPrefixConfiguration();
     }
 
     private void initFormatter(String mask, char symbol) {
@@ -60,8 +100,60 @@ public class MaskTextWatcher implements TextWatcher {
                 .mask(mask);
     }
 
-    private void initPrefixConfiguration() {
-        mPrefixConfig = mFormatter.getPrefixConfiguration();
+    /**
+     * Switch incremental editing mode. In this mode the watcher keeps clear value of the text and applies to it only the edited range,
+     * instead of clearing and formatting the whole text on every change. Only the changed part of the text is replaced,
+     * and the cursor stays right after the edited chars.
+     * <br/>Formatter configuration is taken at the moment of switching, so call this method again after formatter changes.
+     * Generated formatters do not support this mode. By default this parameter is false.
+     *
+     * @see IncrementalFormatter
+     */
+    public MaskTextWatcher useIncrementalEditing(boolean value) {
+        mIncrementalFormatter = value ? new IncrementalFormatter(compile(mFormatter)) : null;
+        return this;
+    }
+
+    private static CompiledMask compile(TextFormatter formatter) {
+        CompiledMask mask = compiledMask(formatter);
+        if (mask == null)
+            throw new IllegalStateException("Incremental editing is not supported by " + formatter.getClass().getName());
+        return mask;
+    }
+
+    /**
+     * Returns compiled mask of formatter, or null for generated formatters
+     */
+    @Nullable
+    private static CompiledMask compiledMask(TextFormatter formatter) {
+        if (formatter instanceof MaskFormatter)
+            return ((MaskFormatter) formatter).compiled();
+        if (formatter instanceof CompiledMask)
+            return (CompiledMask) formatter;
+        return null;
+    }
+
+    /**
+     * Switch coalescing of edits. In this mode consecutive edits made within one main thread message
+     * (paste, IME composition commit, {@code setText}) are not formatted one by one, the text is cleared and formatted once,
+     * when the message is handled. Useful for long masks, like IBAN, on slow devices.
+     * <br/>Switching the mode off formats pending edits immediately. By default this parameter is false.
+     */
+    public MaskTextWatcher coalesceEdits(boolean value) {
+        mCoalesceEdits = value;
+        if (!value)
+            flushPendingEdit();
+        return this;
+    }
+
+    /**
+     * Set listener of watcher events: time spent on every user edit, including the following self change, and count of self changes.
+     * Set the same listener to formatter to measure formatting and clearing.
+     * By default events are not measured.
+     */
+    public MaskTextWatcher metrics(@Nullable FormatterMetrics metrics) {
+        mMetrics = metrics;
+        return this;
     }
 
     @Override
@@ -76,37 +168,187 @@ public class MaskTextWatcher implements TextWatcher {
         if (mSelfChange) {
             return;
         }
+        mEditStart = start;
+        mEditBefore = before;
+        mEditCount = count;
     }
 
     @Override
     public synchronized void afterTextChanged(final Editable s) {
         if (mSelfChange) {
-            if (!TextUtils.isEmpty(mPrefixConfig.getPrefix()) && mPrefixConfig.isNecessarily()) {
-                if (s.toString().equalsIgnoreCase(mPrefixConfig.getPrefix())) {
-                    HANDLER.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            Selection.setSelection(s, mPrefixConfig.getPrefix().length());
-                        }
-                    });
-                }
+            if (mMetrics != null)
+                mMetrics.onWatcherSelfChange();
+            return;
+        }
+
+        if (mCoalesceEdits) {
+            if (mPendingEdit != s) {
+                flushPendingEdit();
+                mPendingEdit = s;
+                HANDLER.post(mFlushPendingEdit);
             }
-            s.setFilters(new InputFilter[]{ALLOWED_CHARS_FILTER});
-            mSelfChange = false;
             return;
         }
-        String cleanText = mFormatter.clear(s.toString());
-        mSelfChange = true;
-        String formattedText = mFormatter.format(cleanText);
-        s.setFilters(new InputFilter[]{});
-        s.replace(0, s.length(), formattedText);
+        formatEdit(s, false);
+    }
+
+    private synchronized void flushPendingEdit() {
+        Editable s = mPendingEdit;
+        if (s == null)
+            return;
+        HANDLER.removeCallbacks(mFlushPendingEdit);
+        mPendingEdit = null;
+        formatEdit(s, true);
+    }
+
+    /**
+     * @param isCoalesced true if the text contains several edits, so edited range is unknown
+     */
+    private void formatEdit(Editable s, boolean isCoalesced) {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null) {
+            applyEdit(s, isCoalesced);
+            return;
+        }
+        long start = System.nanoTime();
+        applyEdit(s, isCoalesced);
+        metrics.onWatcherEdit(System.nanoTime() - start);
+    }
+
+    private void applyEdit(Editable s, boolean isCoalesced) {
+        boolean isFormatterSwitched = selectFormatter(s);
+        if (mIncrementalFormatter != null) {
+            applyIncrementalEdit(s, isFormatterSwitched, isCoalesced);
+            return;
+        }
+        int rawSelection = isFormatterSwitched || isCoalesced ? -1 : rawSelection(s);
+        CompiledMask mask = compiledMask(mFormatter);
+        int cleanLength;
+        if (mask != null) {
+            // text is cleared and formatted into reused buffers, without copying the editable
+            cleanLength = clearToBuffer(mask, s);
+            mFormattedBuffer.setLength(0);
+            mask.formatTo(mClearView, mFormattedBuffer);
+            replaceText(s, mFormattedBuffer);
+        } else {
+            String cleanText = mFormatter.clear(s.toString());
+            cleanLength = cleanText.length();
+            replaceText(s, mFormatter.format(cleanText));
+        }
+
+        if (rawSelection >= 0 && (mFormatter.isMaskStrict() || cleanLength <= mFormatter.getSlotCount())) {
+            Selection.setSelection(s, Math.min(mFormatter.toFormattedOffset(rawSelection), s.length()));
+        }
+    }
+
+    /**
+     * Clears text into reused buffer, {@code mClearView} is limited to the cleared chars
+     *
+     * @return count of cleared chars
+     */
+    private int clearToBuffer(CompiledMask mask, CharSequence text) {
+        if (mClearBuffer.length < text.length()) {
+            mClearBuffer = new char[Math.max(text.length(), mClearBuffer.length * 2)];
+            mClearView = CharBuffer.wrap(mClearBuffer);
+        }
+        int length = mask.clearTo(text, mClearBuffer, 0);
+        mClearView.clear();
+        mClearView.limit(length);
+        return length;
+    }
+
+    /**
+     * Returns count of raw chars before the end of the last edit. Text before the edit is formatted by watcher,
+     * so only inserted chars are counted
+     */
+    private int rawSelection(Editable s) {
+        int end = mEditStart + mEditCount;
+        if (end > s.length())
+            return -1;
+        int rawSelection = mFormatter.toRawOffset(mEditStart);
+        for (int i = mEditStart; i < end; i++) {
+            if (mFormatter.accepts(s.charAt(i)))
+                rawSelection++;
+        }
+        return rawSelection;
+    }
+
+    /**
+     * Replaces only the changed part of the text, found by common prefix and suffix with formatted text,
+     * so spans out of the change are kept and layout is not invalidated for the whole text.
+     * Watcher callbacks caused by the replacement are skipped, allowed chars filter is installed after it
+     */
+    private void replaceText(final Editable s, CharSequence formattedText) {
+        int length = s.length();
+        int formattedLength = formattedText.length();
+        int commonLength = Math.min(length, formattedLength);
+        int start = 0;
+        while (start < commonLength && s.charAt(start) == formattedText.charAt(start)) {
+            start++;
+        }
+        int end = 0;
+        while (end < commonLength - start && s.charAt(length - end - 1) == formattedText.charAt(formattedLength - end - 1)) {
+            end++;
+        }
+        if (start < length || start < formattedLength) {
+            mSelfChange = true;
+            s.setFilters(NO_FILTERS);
+            try {
+                s.replace(start, length - end, formattedText, start, formattedLength - end);
+            } finally {
+                mSelfChange = false;
+            }
+        }
+        // allowed chars filter is installed after every user edit, even if formatting didn't change the text
+        s.setFilters(mAllowedFilters);
+        final String prefix = mFormatter.getMaskPrefix();
+        if (!TextUtils.isEmpty(prefix) && mFormatter.isPrefixNecessarily()) {
+            if (s.length() == prefix.length() && s.toString().equalsIgnoreCase(prefix)) {
+                HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        Selection.setSelection(s, prefix.length());
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Switches formatter, if selector gives another formatter for the text
+     *
+     * @return true if formatter was switched
+     */
+    private boolean selectFormatter(CharSequence text) {
+        if (mSelector == null)
+            return false;
+        MaskFormatter formatter = mSelector.find(text);
+        if (formatter == mFormatter)
+            return false;
+        mFormatter = formatter;
+        return true;
+    }
+
+    private void applyIncrementalEdit(Editable s, boolean isFormatterSwitched, boolean isCoalesced) {
+        // compiled masks of selector formatters are memoized, so switching reuses them together with incremental formatter buffers
+        if (isFormatterSwitched)
+            mIncrementalFormatter.reset(compile(mFormatter), s);
+        else if (isCoalesced)
+            mIncrementalFormatter.reset(s);
+        else
+            mIncrementalFormatter.edit(s, mEditStart, mEditBefore, mEditCount);
+        replaceText(s, mIncrementalFormatter.getFormatted());
+        Selection.setSelection(s, Math.min(mIncrementalFormatter.getSelection(), s.length()));
     }
 
-    private static class MaskInputFilter implements InputFilter {
+    private class MaskInputFilter implements InputFilter {
         @Override
         public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
-            if (end != 0 && !Character.isLetterOrDigit(source.charAt(end - 1))) {
-                return source.subSequence(start, end - 1);
+            if (end <= start)
+                return null;
+            int count = CharClassifier.charCountBefore(source, start, end);
+            if (count > 1 || !mFormatter.accepts(source.charAt(end - 1))) {
+                return source.subSequence(start, end - count);
             }
             return null;
         }
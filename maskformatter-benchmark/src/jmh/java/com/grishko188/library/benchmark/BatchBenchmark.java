@@ -0,0 +1,45 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.CompiledMask;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares parallel {@link CompiledMask#formatAll(String[], java.util.concurrent.Executor)} with a single threaded loop.
+ */
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private CompiledMask mMask;
+    private String[] mSources;
+
+    @Setup
+    public void setUp() {
+        mMask = MaskType.PHONE.formatter(true).build();
+        mSources = new String[size];
+        for (int i = 0; i < size; i++) {
+            mSources[i] = "+7930" + (1000000 + i);
+        }
+    }
+
+    @Benchmark
+    public String[] loop() {
+        String[] results = new String[mSources.length];
+        for (int i = 0; i < mSources.length; i++) {
+            results[i] = mMask.format(mSources[i]);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public String[] formatAll() {
+        return mMask.formatAll(mSources, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.Mask;
+
+/**
+ * Constant masks of {@link MaskType}, for which formatters are generated by annotation processor
+ */
+final class BenchmarkMasks {
+
+    @Mask(value = "PhoneMask", prefix = "+7 ", ignoreInputPrefixes = {"+7", "7", "8"})
+    static final String PHONE = "(###) ###-##-##";
+
+    @Mask("CardMask")
+    static final String CARD = "#### #### #### ####";
+
+    @Mask("IbanMask")
+    static final String IBAN = "#### #### #### #### #### ##";
+
+    private BenchmarkMasks() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskBundle;
+import com.grishko188.library.MaskBundleWriter;
+import com.grishko188.library.MaskFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measures startup cost of all benchmark masks: compiling them from formatters,
+ * loading {@link MaskBundle} with lazy decoding, and loading the bundle with decoding of every mask.
+ */
+@State(Scope.Benchmark)
+public class BundleBenchmark {
+
+    private MaskFormatter[] mFormatters;
+    private ByteBuffer mBundle;
+
+    @Setup
+    public void setUp() {
+        MaskType[] types = MaskType.values();
+        mFormatters = new MaskFormatter[types.length];
+        MaskBundleWriter writer = MaskBundleWriter.get();
+        for (int i = 0; i < types.length; i++) {
+            mFormatters[i] = types[i].formatter(true);
+            writer.add(types[i].name(), mFormatters[i]);
+        }
+        byte[] bytes = writer.toByteArray();
+        mBundle = ByteBuffer.allocateDirect(bytes.length);
+        mBundle.put(bytes).flip();
+    }
+
+    @Benchmark
+    public CompiledMask[] build() {
+        CompiledMask[] masks = new CompiledMask[mFormatters.length];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = mFormatters[i].build();
+        }
+        return masks;
+    }
+
+    @Benchmark
+    public MaskBundle load() {
+        return MaskBundle.load(mBundle);
+    }
+
+    @Benchmark
+    public CompiledMask[] loadAndDecode() {
+        MaskBundle bundle = MaskBundle.load(mBundle);
+        CompiledMask[] masks = new CompiledMask[bundle.size()];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = bundle.get(i);
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,46 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.MaskFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures checking of formatted field text on every keystroke: formatting the cleared text and comparing lengths,
+ * against allocation-free {@link MaskFormatter#isComplete(CharSequence)} and {@link MaskFormatter#validate(CharSequence)}.
+ */
+@State(Scope.Thread)
+public class CompletenessBenchmark {
+
+    @Param({"PHONE", "CARD", "LONG"})
+    public MaskType maskType;
+
+    private MaskFormatter mFormatter;
+    private StringBuilder mText;
+    private int mCompleteLength;
+
+    @Setup
+    public void setUp() {
+        mFormatter = maskType.formatter(true);
+        mText = new StringBuilder(mFormatter.format(maskType.input()));
+        mCompleteLength = mText.length();
+    }
+
+    @Benchmark
+    public boolean formatAndCompare() {
+        return mFormatter.format(mFormatter.clear(mText.toString())).length() == mCompleteLength;
+    }
+
+    @Benchmark
+    public boolean isComplete() {
+        return mFormatter.isComplete(mText);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return mFormatter.validate(mText) < 0;
+    }
+}
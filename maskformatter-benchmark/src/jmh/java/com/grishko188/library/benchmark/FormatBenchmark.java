@@ -0,0 +1,64 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.MaskFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link MaskFormatter#format(String)}, its allocation-free formatTo overloads, {@link MaskFormatter#clear(String)} and {@link MaskFormatter#clearStatic(String)}
+ * for typical masks in strict and non-strict modes.
+ */
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    @Param({"PHONE", "CARD", "IBAN", "LONG"})
+    public MaskType maskType;
+
+    @Param({"true", "false"})
+    public boolean strict;
+
+    private MaskFormatter mFormatter;
+    private String mRaw;
+    private String mFormatted;
+    private char[] mDestination;
+    private StringBuilder mBuilder;
+
+    @Setup
+    public void setUp() {
+        mFormatter = maskType.formatter(strict);
+        mRaw = maskType.input();
+        mFormatted = maskType.formatter(true).format(mRaw);
+        mDestination = new char[mFormatted.length() + mRaw.length()];
+        mBuilder = new StringBuilder(mDestination.length);
+    }
+
+    @Benchmark
+    public String format() {
+        return mFormatter.format(mRaw);
+    }
+
+    @Benchmark
+    public int formatToArray() {
+        return mFormatter.formatTo(mRaw, mDestination, 0);
+    }
+
+    @Benchmark
+    public int formatToBuilder() {
+        mBuilder.setLength(0);
+        return mFormatter.formatTo(mRaw, mBuilder);
+    }
+
+    @Benchmark
+    public String clear() {
+        return mFormatter.clear(mFormatted);
+    }
+
+    @Benchmark
+    public String clearStatic() {
+        return mFormatter.clearStatic(mFormatted);
+    }
+}
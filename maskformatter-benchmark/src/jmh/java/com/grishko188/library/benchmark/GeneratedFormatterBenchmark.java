@@ -0,0 +1,67 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.TextFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link CompiledMask} with formatters generated for the same constant masks.
+ */
+@State(Scope.Thread)
+public class GeneratedFormatterBenchmark {
+
+    @Param({"PHONE", "CARD", "IBAN"})
+    public MaskType maskType;
+
+    private CompiledMask mCompiled;
+    private TextFormatter mGenerated;
+    private String mRaw;
+    private String mFormatted;
+
+    @Setup
+    public void setUp() {
+        mCompiled = maskType.formatter(true).build();
+        switch (maskType) {
+            case PHONE:
+                mGenerated = PhoneMask.INSTANCE;
+                break;
+            case CARD:
+                mGenerated = CardMask.INSTANCE;
+                break;
+            default:
+                mGenerated = IbanMask.INSTANCE;
+        }
+        mRaw = maskType.input();
+        mFormatted = mCompiled.format(mRaw);
+    }
+
+    @Benchmark
+    public String formatCompiled() {
+        return mCompiled.format(mRaw);
+    }
+
+    @Benchmark
+    public String formatGenerated() {
+        return mGenerated.format(mRaw);
+    }
+
+    @Benchmark
+    public String clearCompiled() {
+        return mCompiled.clear(mFormatted);
+    }
+
+    @Benchmark
+    public String clearGenerated() {
+        return mGenerated.clear(mFormatted);
+    }
+
+    @Benchmark
+    public CompiledMask buildCompiled() {
+        return maskType.formatter(true).build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.MaskFormatter;
+
+/**
+ * Typical masks used in benchmarks, with sample raw input for each of them
+ */
+public enum MaskType {
+
+    PHONE("(###) ###-##-##", "9307920000") {
+        @Override
+        MaskFormatter formatter(boolean strict) {
+            return super.formatter(strict)
+                    .maskPrefix("+7 ")
+                    .ignoreInputPrefixes("+7", "7", "8");
+        }
+    },
+    CARD("#### #### #### ####", "4111111111111111"),
+    IBAN("#### #### #### #### #### ##", "DE89370400440532013000"),
+    LONG("#### #### #### #### #### #### #### #### #### #### #### #### #### #### #### ####",
+            "1234567890123456789012345678901234567890123456789012345678901234");
+
+    private final String mMask;
+    private final String mInput;
+
+    MaskType(String mask, String input) {
+        mMask = mask;
+        mInput = input;
+    }
+
+    MaskFormatter formatter(boolean strict) {
+        return MaskFormatter.get()
+                .mask(mMask)
+                .strictMask(strict);
+    }
+
+    String input() {
+        return mInput;
+    }
+}
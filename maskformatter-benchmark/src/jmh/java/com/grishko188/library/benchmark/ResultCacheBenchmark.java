@@ -0,0 +1,68 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.MaskFormatter;
+import com.grishko188.library.MaskFormatters;
+import com.grishko188.library.MaskResultCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures formatting of a small hot set of values, like numbers in rebound list rows,
+ * with and without {@link MaskResultCache}, for string and string builder sources.
+ */
+@State(Scope.Benchmark)
+public class ResultCacheBenchmark {
+
+    private static final int HOT_VALUES = 32;
+
+    @Param({"PHONE", "IBAN"})
+    public MaskType maskType;
+
+    private MaskFormatter mFormatter;
+    private MaskResultCache mCache;
+    private String[] mValues;
+    private StringBuilder[] mBuilders;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mFormatter = maskType.formatter(true);
+        mCache = MaskFormatters.newResultCache(mFormatter.build(), HOT_VALUES * 2);
+        String input = maskType.input();
+        mValues = new String[HOT_VALUES];
+        mBuilders = new StringBuilder[HOT_VALUES];
+        for (int i = 0; i < HOT_VALUES; i++) {
+            String suffix = String.valueOf(10 + i);
+            mValues[i] = input.substring(0, input.length() - suffix.length()) + suffix;
+            mBuilders[i] = new StringBuilder(mValues[i]);
+        }
+    }
+
+    private int next() {
+        return mIndex = (mIndex + 1) & (HOT_VALUES - 1);
+    }
+
+    @Benchmark
+    public String format() {
+        return mFormatter.format(mValues[next()]);
+    }
+
+    @Benchmark
+    public String formatCached() {
+        return mCache.format(mValues[next()]);
+    }
+
+    @Benchmark
+    public String formatBuilder() {
+        return mFormatter.format(mBuilders[next()].toString());
+    }
+
+    @Benchmark
+    public String formatBuilderCached() {
+        return mCache.format(mBuilders[next()]);
+    }
+}
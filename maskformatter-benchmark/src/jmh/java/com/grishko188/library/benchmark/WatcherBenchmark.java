@@ -0,0 +1,76 @@
+package com.grishko188.library.benchmark;
+
+import com.grishko188.library.IncrementalFormatter;
+import com.grishko188.library.MaskFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the clear and format round trip, which {@code MaskTextWatcher.afterTextChanged} does on every keystroke,
+ * and the same keystrokes handled by {@link IncrementalFormatter} in incremental editing mode.
+ */
+@State(Scope.Thread)
+public class WatcherBenchmark {
+
+    @Param({"PHONE", "CARD", "IBAN", "LONG"})
+    public MaskType maskType;
+
+    private MaskFormatter mFormatter;
+    private String mRaw;
+    private String mEditedText;
+
+    private IncrementalFormatter mIncrementalFormatter;
+    private String mTypedText;
+    private String mDeletedText;
+
+    @Setup
+    public void setUp() {
+        mFormatter = maskType.formatter(true);
+        mRaw = maskType.input();
+
+        String halfOfInput = mRaw.substring(0, mRaw.length() / 2);
+        mEditedText = mFormatter.format(halfOfInput) + mRaw.charAt(halfOfInput.length());
+
+        mIncrementalFormatter = new IncrementalFormatter(mFormatter.build());
+        mIncrementalFormatter.reset(halfOfInput);
+        mTypedText = mIncrementalFormatter.getFormatted() + String.valueOf(mRaw.charAt(halfOfInput.length()));
+        mIncrementalFormatter.edit(mTypedText, mTypedText.length() - 1, 0, 1);
+        String formattedText = mIncrementalFormatter.getFormatted().toString();
+        mDeletedText = formattedText.substring(0, formattedText.length() - 1);
+        mIncrementalFormatter.edit(mDeletedText, mDeletedText.length(), 1, 0);
+    }
+
+    /**
+     * Single keystroke in the middle of input
+     */
+    @Benchmark
+    public String keystroke() {
+        return mFormatter.format(mFormatter.clear(mEditedText));
+    }
+
+    /**
+     * Keystroke in the middle of input followed by backspace, in incremental editing mode
+     */
+    @Benchmark
+    public CharSequence incrementalTypeAndDelete() {
+        mIncrementalFormatter.edit(mTypedText, mTypedText.length() - 1, 0, 1);
+        mIncrementalFormatter.edit(mDeletedText, mDeletedText.length(), 1, 0);
+        return mIncrementalFormatter.getFormatted();
+    }
+
+    /**
+     * Whole input typed char by char
+     */
+    @Benchmark
+    public String typing() {
+        String text = "";
+        for (int i = 0; i < mRaw.length(); i++) {
+            text = mFormatter.format(mFormatter.clear(text + mRaw.charAt(i)));
+        }
+        return text;
+    }
+}
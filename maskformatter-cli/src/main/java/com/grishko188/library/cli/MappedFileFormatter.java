@@ -0,0 +1,347 @@
+package com.grishko188.library.cli;
+
+import com.grishko188.library.CompiledMask;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Formats or clears every line of UTF-8 text file with {@link CompiledMask}.
+ * <br/>Input file is memory mapped in chunks split at line boundaries, chunks are processed in parallel
+ * into reusable byte buffers and written to output {@link FileChannel} in input order.
+ * Count of chunks in flight is limited, so memory usage does not depend on file size.
+ * <br/>Line terminators ({@code \n} or {@code \r\n}) are kept as is, every line gives exactly one output line.
+ * ASCII lines are read without decoder, lines with other chars are decoded as UTF-8, malformed bytes are replaced.
+ *
+ * @author Grishko Nikita
+ */
+public final class MappedFileFormatter {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 2;
+    private static final int SCAN_BUFFER_SIZE = 4096;
+
+    private final CompiledMask mMask;
+    private final boolean mClear;
+    private int mThreads = Runtime.getRuntime().availableProcessors();
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+
+    private final Queue<ByteBuffer> mFreeBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<LineBuffers> mLineBuffers = new ThreadLocal<LineBuffers>() {
+        @Override
+        protected LineBuffers initialValue() {
+            return new LineBuffers();
+        }
+    };
+
+    /**
+     * @param clear if true lines are cleared with mask, otherwise formatted
+     */
+    public MappedFileFormatter(CompiledMask mask, boolean clear) {
+        mMask = mask;
+        mClear = clear;
+    }
+
+    /**
+     * Count of threads processing chunks. By default equals to count of available processors
+     */
+    public MappedFileFormatter threads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads count must be positive: " + threads);
+        mThreads = threads;
+        return this;
+    }
+
+    /**
+     * Approximate size of input chunk in bytes, chunk is extended to the end of its last line
+     */
+    public MappedFileFormatter chunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        mChunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Processes all lines of input file and writes results to output file, replacing its content
+     */
+    public Stats process(Path input, Path output) throws IOException {
+        long started = System.nanoTime();
+        long records = 0;
+        long outputBytes = 0;
+        long inputBytes;
+
+        ExecutorService executor = Executors.newFixedThreadPool(mThreads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            inputBytes = in.size();
+            ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            long position = 0;
+            while (position < inputBytes || !pending.isEmpty()) {
+                while (position < inputBytes && pending.size() < mThreads * CHUNKS_PER_THREAD) {
+                    long end = chunkEnd(in, position, inputBytes, scanBuffer);
+                    final MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                    pending.add(executor.submit(new Callable<Chunk>() {
+                        @Override
+                        public Chunk call() {
+                            return processChunk(source);
+                        }
+                    }));
+                    position = end;
+                }
+
+                Chunk chunk = await(pending.poll());
+                ByteBuffer result = chunk.mOutput;
+                result.flip();
+                while (result.hasRemaining()) {
+                    outputBytes += out.write(result);
+                }
+                records += chunk.mRecords;
+                result.clear();
+                mFreeBuffers.offer(result);
+            }
+        } finally {
+            executor.shutdownNow();
+            mFreeBuffers.clear();
+        }
+        return new Stats(records, inputBytes, outputBytes, System.nanoTime() - started);
+    }
+
+    /**
+     * Returns position right after the first line break found at least chunk size bytes after start, or input size
+     */
+    private long chunkEnd(FileChannel in, long start, long size, ByteBuffer scanBuffer) throws IOException {
+        long position = start + mChunkSize;
+        while (position < size) {
+            scanBuffer.clear();
+            int read = in.read(scanBuffer, position);
+            for (int i = 0; i < read; i++) {
+                if (scanBuffer.get(i) == '\n') {
+                    position += i + 1;
+                    return checkChunkLength(start, position);
+                }
+            }
+            position += Math.max(read, 0);
+        }
+        return checkChunkLength(start, size);
+    }
+
+    private static long checkChunkLength(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE)
+            throw new IOException("Line starting before position " + end + " is too long to be mapped");
+        return end;
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private Chunk processChunk(ByteBuffer source) {
+        LineBuffers buffers = mLineBuffers.get();
+        ByteBuffer output = mFreeBuffers.poll();
+        if (output == null || output.capacity() < source.remaining())
+            output = ByteBuffer.allocate(source.remaining() + source.remaining() / 2 + 64);
+
+        long records = 0;
+        int limit = source.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && source.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && lineEnd < limit && source.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+
+            CharBuffer line = buffers.read(source, lineStart, contentEnd);
+            int length = buffers.apply(mMask, mClear, line);
+            output = buffers.write(output, length);
+            if (lineEnd < limit) {
+                output = ensureCapacity(output, 2);
+                if (contentEnd < lineEnd)
+                    output.put((byte) '\r');
+                output.put((byte) '\n');
+            }
+            records++;
+            lineStart = lineEnd + 1;
+        }
+        return new Chunk(output, records);
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int required) {
+        if (buffer.remaining() >= required)
+            return buffer;
+        ByteBuffer extended = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + required));
+        buffer.flip();
+        extended.put(buffer);
+        return extended;
+    }
+
+    /**
+     * Per thread buffers for decoding, formatting and encoding a single line
+     */
+    private static final class LineBuffers {
+
+        private char[] mLine = new char[256];
+        private CharBuffer mLineView = CharBuffer.wrap(mLine);
+        private char[] mResult = new char[256];
+        private final CharsetDecoder mDecoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        CharBuffer read(ByteBuffer source, int from, int to) {
+            int length = to - from;
+            if (length > mLine.length) {
+                mLine = new char[Math.max(length, mLine.length * 2)];
+                mLineView = CharBuffer.wrap(mLine);
+            }
+            for (int i = 0; i < length; i++) {
+                byte symbol = source.get(from + i);
+                if (symbol < 0)
+                    return decode(source, from, to);
+                mLine[i] = (char) symbol;
+            }
+            mLineView.clear();
+            mLineView.limit(length);
+            return mLineView;
+        }
+
+        private CharBuffer decode(ByteBuffer source, int from, int to) {
+            ByteBuffer bytes = source.duplicate();
+            bytes.limit(to);
+            bytes.position(from);
+            mLineView.clear();
+            mDecoder.reset();
+            mDecoder.decode(bytes, mLineView, true);
+            mDecoder.flush(mLineView);
+            mLineView.flip();
+            return mLineView;
+        }
+
+        /**
+         * Formats or clears the line into result buffer and returns result length
+         */
+        int apply(CompiledMask mask, boolean clear, CharBuffer line) {
+            int capacity = clear ? line.length() : line.length() + mask.getMask().length()
+                    + (mask.getMaskPrefix() == null ? 0 : mask.getMaskPrefix().length());
+            if (capacity > mResult.length)
+                mResult = new char[Math.max(capacity, mResult.length * 2)];
+            return clear ? mask.clearTo(line, mResult, 0) : mask.formatTo(line, mResult, 0);
+        }
+
+        /**
+         * Encodes result as UTF-8 to output, which is extended if needed
+         */
+        ByteBuffer write(ByteBuffer output, int length) {
+            output = ensureCapacity(output, length * 3);
+            for (int i = 0; i < length; i++) {
+                char symbol = mResult[i];
+                if (symbol < 0x80) {
+                    output.put((byte) symbol);
+                } else if (symbol < 0x800) {
+                    output.put((byte) (0xC0 | symbol >> 6));
+                    output.put((byte) (0x80 | symbol & 0x3F));
+                } else if (Character.isHighSurrogate(symbol) && i + 1 < length && Character.isLowSurrogate(mResult[i + 1])) {
+                    int codePoint = Character.toCodePoint(symbol, mResult[++i]);
+                    output.put((byte) (0xF0 | codePoint >> 18));
+                    output.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    output.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    output.put((byte) (0x80 | codePoint & 0x3F));
+                } else if (Character.isSurrogate(symbol)) {
+                    output.put((byte) '?');
+                } else {
+                    output.put((byte) (0xE0 | symbol >> 12));
+                    output.put((byte) (0x80 | symbol >> 6 & 0x3F));
+                    output.put((byte) (0x80 | symbol & 0x3F));
+                }
+            }
+            return output;
+        }
+    }
+
+    private static final class Chunk {
+
+        final ByteBuffer mOutput;
+        final long mRecords;
+
+        Chunk(ByteBuffer output, long records) {
+            mOutput = output;
+            mRecords = records;
+        }
+    }
+
+    /**
+     * Result of processing a file
+     */
+    public static final class Stats {
+
+        private final long mRecords;
+        private final long mInputBytes;
+        private final long mOutputBytes;
+        private final long mElapsedNanos;
+
+        Stats(long records, long inputBytes, long outputBytes, long elapsedNanos) {
+            mRecords = records;
+            mInputBytes = inputBytes;
+            mOutputBytes = outputBytes;
+            mElapsedNanos = elapsedNanos;
+        }
+
+        public long getRecords() {
+            return mRecords;
+        }
+
+        public long getInputBytes() {
+            return mInputBytes;
+        }
+
+        public long getOutputBytes() {
+            return mOutputBytes;
+        }
+
+        public long getElapsedNanos() {
+            return mElapsedNanos;
+        }
+
+        public double getRecordsPerSecond() {
+            return mRecords * 1e9 / Math.max(mElapsedNanos, 1);
+        }
+
+        /**
+         * Returns input megabytes (2^20 bytes) processed per second
+         */
+        public double getMegabytesPerSecond() {
+            return mInputBytes * 1e9 / (1024.0 * 1024.0) / Math.max(mElapsedNanos, 1);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.grishko188.library.cli;
+
+import com.grishko188.library.MaskFormatter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line tool, which formats or clears every line of a file with the same mask settings as {@link MaskFormatter} does.
+ * <pre>
+ * {@code
+ * maskformatter --mask "(###) ###-##-##" --prefix "+7 " --ignore +7 --ignore 7 --ignore 8 phones.txt formatted.txt
+ * maskformatter --mask "(###) ###-##-##" --prefix "+7 " --clear formatted.txt phones.txt
+ * }
+ * </pre>
+ * Throughput is printed to standard error after processing.
+ *
+ * @author Grishko Nikita
+ */
+public final class MaskFormatterCli {
+
+    private static final String USAGE = "Usage: maskformatter [options] <input> <output>\n"
+            + "  -m, --mask <mask>         mask to format lines with, required\n"
+            + "  -s, --symbol <char>       replacement char of mask, by default the most frequent mask char\n"
+            + "  -p, --prefix <prefix>     mask prefix\n"
+            + "  -i, --ignore <prefix>     ignored input prefix, may be repeated\n"
+            + "      --non-strict          do not apply mask to lines longer then mask\n"
+            + "  -c, --clear               clear lines instead of formatting\n"
+            + "  -t, --threads <count>     count of worker threads, by default count of processors\n"
+            + "      --chunk-size <bytes>  approximate size of input chunk processed by one task\n"
+            + "  -h, --help                print this message";
+
+    private MaskFormatterCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.err));
+    }
+
+    /**
+     * Runs the tool and returns exit code: 0 on success, 1 on I/O error, 2 on invalid arguments
+     */
+    static int run(String[] args, PrintStream log) {
+        MaskFormatter formatter = MaskFormatter.get();
+        List<String> ignoredPrefixes = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        boolean hasMask = false;
+        boolean clear = false;
+        Integer threads = null;
+        Integer chunkSize = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-m":
+                    case "--mask":
+                        formatter.mask(value(args, ++i, arg));
+                        hasMask = true;
+                        break;
+                    case "-s":
+                    case "--symbol":
+                        String symbol = value(args, ++i, arg);
+                        if (symbol.length() != 1)
+                            throw new IllegalArgumentException("Replacement char must be a single char: " + symbol);
+                        formatter.symbol(symbol.charAt(0));
+                        break;
+                    case "-p":
+                    case "--prefix":
+                        formatter.maskPrefix(value(args, ++i, arg));
+                        break;
+                    case "-i":
+                    case "--ignore":
+                        ignoredPrefixes.add(value(args, ++i, arg));
+                        break;
+                    case "--non-strict":
+                        formatter.strictMask(false);
+                        break;
+                    case "-c":
+                    case "--clear":
+                        clear = true;
+                        break;
+                    case "-t":
+                    case "--threads":
+                        threads = number(value(args, ++i, arg), arg);
+                        break;
+                    case "--chunk-size":
+                        chunkSize = number(value(args, ++i, arg), arg);
+                        break;
+                    case "-h":
+                    case "--help":
+                        log.println(USAGE);
+                        return 0;
+                    default:
+                        if (arg.startsWith("-") && arg.length() > 1)
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        files.add(arg);
+                }
+            }
+            if (!hasMask)
+                throw new IllegalArgumentException("Mask is not set");
+            if (files.size() != 2)
+                throw new IllegalArgumentException("Input and output files are expected");
+
+            formatter.ignoreInputPrefixes(ignoredPrefixes.toArray(new String[ignoredPrefixes.size()]));
+            MappedFileFormatter fileFormatter = new MappedFileFormatter(formatter.build(), clear);
+            if (threads != null)
+                fileFormatter.threads(threads);
+            if (chunkSize != null)
+                fileFormatter.chunkSize(chunkSize);
+
+            Path input = Paths.get(files.get(0));
+            Path output = Paths.get(files.get(1));
+            // output is truncated before input is mapped, so writing over input would destroy it
+            if (Files.exists(output) && Files.isSameFile(input, output))
+                throw new IllegalArgumentException("Input and output must be different files");
+            MappedFileFormatter.Stats stats = fileFormatter.process(input, output);
+            log.println(String.format(Locale.US, "%d records, %.1f MB in %.3f s: %.0f records/s, %.1f MB/s",
+                    stats.getRecords(), stats.getInputBytes() / (1024.0 * 1024.0), stats.getElapsedNanos() / 1e9,
+                    stats.getRecordsPerSecond(), stats.getMegabytesPerSecond()));
+            return 0;
+        } catch (IllegalArgumentException e) {
+            log.println(e.getMessage());
+            log.println(USAGE);
+            return 2;
+        } catch (IOException e) {
+            log.println("Failed to process file: " + e);
+            return 1;
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Value is expected after " + option);
+        return args[index];
+    }
+
+    private static int number(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Number is expected after " + option + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.grishko188.library.cli;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedFileFormatterTest {
+
+    private static final CompiledMask PHONE = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ")
+            .ignoreInputPrefixes("+7", "7", "8").build();
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File write(String content) throws IOException {
+        File file = mFolder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void test_formatKeepsOrderAndLineBreaks() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            String phone = String.valueOf(89300000000L + i);
+            String lineBreak = i % 3 == 0 ? "\r\n" : "\n";
+            input.append(phone).append(lineBreak);
+            expected.append(PHONE.format(phone)).append(lineBreak);
+        }
+        input.append("\nтел 9301234567");
+        expected.append('\n').append(PHONE.format("тел 9301234567"));
+
+        File output = mFolder.newFile();
+        MappedFileFormatter.Stats stats = new MappedFileFormatter(PHONE, false).threads(4).chunkSize(1000)
+                .process(write(input.toString()).toPath(), output.toPath());
+
+        assertEquals(expected.toString(), read(output));
+        assertEquals(10002, stats.getRecords());
+        assertEquals(output.length(), stats.getOutputBytes());
+    }
+
+    @Test
+    public void test_clear() throws IOException {
+        File output = mFolder.newFile();
+        new MappedFileFormatter(PHONE, true).process(write("+7 (930) 123-45-67\n+7 (930) 111-22\n").toPath(), output.toPath());
+        assertEquals("9301234567\n93011122\n", read(output));
+    }
+
+    @Test
+    public void test_emptyFile() throws IOException {
+        File output = write("stale content");
+        MappedFileFormatter.Stats stats = new MappedFileFormatter(PHONE, false).process(write("").toPath(), output.toPath());
+        assertEquals("", read(output));
+        assertEquals(0, stats.getRecords());
+    }
+
+    @Test
+    public void test_cli() throws IOException {
+        File input = write("89301234567\n");
+        File output = mFolder.newFile();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        String[] args = {"--mask", "(###) ###-##-##", "--prefix", "+7 ", "-i", "8", input.getPath(), output.getPath()};
+
+        assertEquals(0, MaskFormatterCli.run(args, new PrintStream(log)));
+        assertEquals("+7 (930) 123-45-67\n", read(output));
+        assertEquals(2, MaskFormatterCli.run(new String[]{input.getPath(), output.getPath()}, new PrintStream(log)));
+    }
+
+    @Test
+    public void test_cliRejectsSameFile() throws IOException {
+        File input = write("89301234567\n");
+        String[] args = {"--mask", "(###) ###-##-##", input.getPath(), new File(input.getParentFile(), "./" + input.getName()).getPath()};
+
+        assertEquals(2, MaskFormatterCli.run(args, new PrintStream(new ByteArrayOutputStream())));
+        assertEquals("89301234567\n", read(input));
+    }
+}
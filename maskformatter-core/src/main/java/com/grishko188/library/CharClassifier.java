@@ -0,0 +1,69 @@
+package com.grishko188.library;
+
+/**
+ * Classifies chars placed in mask slots.
+ * <br/>ASCII chars are classified with precomputed table, other chars fall back to {@link Character}.
+ * <br/>Slots hold single chars, so supplementary code points (surrogate pairs, like {@code "𝐀"} or mathematical digits {@code "𝟏"})
+ * are never placed in slots: format skips the whole pair as a separator, clear keeps it whole in the not matching source,
+ * slot classes and slot chars can't be surrogates. Input filter of {@code MaskTextWatcher} uses
+ * {@link #charCountBefore(CharSequence, int, int)} to drop whole surrogate pairs.
+ *
+ * @author Grishko Nikita
+ */
+public final class CharClassifier {
+
+    static final byte DIGIT = 1;
+    static final byte LETTER = 1 << 1;
+    static final byte HEX_DIGIT = 1 << 2;
+
+    private static final byte[] ASCII = new byte[128];
+
+    static {
+        for (char symbol = '0'; symbol <= '9'; symbol++) {
+            ASCII[symbol] = DIGIT | HEX_DIGIT;
+        }
+        for (char symbol = 'a'; symbol <= 'z'; symbol++) {
+            ASCII[symbol] = LETTER;
+            ASCII[Character.toUpperCase(symbol)] = LETTER;
+        }
+        for (char symbol = 'a'; symbol <= 'f'; symbol++) {
+            ASCII[symbol] |= HEX_DIGIT;
+            ASCII[Character.toUpperCase(symbol)] |= HEX_DIGIT;
+        }
+    }
+
+    private CharClassifier() {
+    }
+
+    /**
+     * Returns true if the char can be placed in mask slot
+     */
+    public static boolean isLetterOrDigit(char symbol) {
+        if (symbol < 128)
+            return ASCII[symbol] != 0;
+        return Character.isLetterOrDigit(symbol);
+    }
+
+    /**
+     * Returns true for high and low chars of surrogate pairs
+     */
+    static boolean isSurrogate(char symbol) {
+        return symbol >= Character.MIN_SURROGATE && symbol <= Character.MAX_SURROGATE;
+    }
+
+    static boolean hasFlags(char symbol, int flags) {
+        return symbol < 128 && (ASCII[symbol] & flags) != 0;
+    }
+
+    /**
+     * Returns count of chars of the code point ending right before given index: 2 for surrogate pair, otherwise 1
+     *
+     * @param start index of the first char, which may belong to the code point
+     */
+    public static int charCountBefore(CharSequence text, int start, int index) {
+        if (index - start >= 2 && Character.isLowSurrogate(text.charAt(index - 1))
+                && Character.isHighSurrogate(text.charAt(index - 2)))
+            return 2;
+        return 1;
+    }
+}
@@ -0,0 +1,1146 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+
+/**
+ * Immutable, precompiled form of the {@link MaskFormatter} configuration.
+ * <br/>All mask analysis (replacement char detection, slot positions, clear elements) is done once in {@link MaskFormatter#build()},
+ * so {@link #format(String)}, {@link #clear(String)} and {@link #clearStatic(String)} do not repeat it on every call.
+ * <br/>Instances are safe to share between threads.
+ * <pre>
+ * {@code
+ * CompiledMask mask = MaskFormatter.get().mask("+7 (###) ###-##-##")
+ *                                  .ignoreInputPrefixes("+7", "7", "8")
+ *                                  .build();
+ *     assertEquals("+7 (930) 792-00-00", mask.format("89307920000"));
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ */
+public final class CompiledMask implements TextFormatter {
+
+    private final String mMask;
+    private final char[] mMaskChars;
+    private final char mReplacementChar;
+
+    /**
+     * Class of chars accepted at every mask position, null for literals
+     */
+    private final SlotClass[] mPositionClasses;
+    /**
+     * Union of classes of all slots
+     */
+    private final SlotClass mAcceptedChars;
+
+    /**
+     * Positions of the replacement chars in mask, in ascending order
+     */
+    private final int[] mSlotPositions;
+    private final int mSlotCount;
+
+    /**
+     * Count of replacement chars before each mask position, with extra entry for the mask end
+     */
+    private final int[] mSlotsBefore;
+    /**
+     * Formatted mask position right after each count of filled replacement chars, with prefix excluded
+     */
+    private final int[] mRawToFormatted;
+
+    private final String mMaskPrefix;
+    private final boolean mPrependPrefix;
+    private final boolean mPrefixNecessarily;
+    /**
+     * Ignored input prefixes, or null if there are no prefixes
+     */
+    private final PrefixTrie mIgnorePrefix;
+    private final boolean mIsMaskStrict;
+
+    /**
+     * Mask split into clear elements: every literal char is a separate element,
+     * every sequence of replacement chars with the same slot class is one element.
+     * <br/>For literal element {@code mElementSlots} is 0, {@code mElementClasses} is null and {@code mElementChars} holds the literal,
+     * for replacement sequence {@code mElementSlots} holds its length
+     */
+    private final char[] mElementChars;
+    private final int[] mElementSlots;
+    private final SlotClass[] mElementClasses;
+
+    /**
+     * Listener of formatting events, or null if events are not measured
+     */
+    private final FormatterMetrics mMetrics;
+
+    private static final int FLAG_PREFIX_NECESSARILY = 1;
+    private static final int FLAG_STRICT = 1 << 1;
+
+    CompiledMask(@Nullable String mask, char replacementChar, @Nullable String maskPrefix, boolean prefixNecessarily,
+                 @Nullable String[] ignorePrefix, boolean isMaskStrict, @Nullable char[] slotChars, @Nullable SlotClass[] slotClasses,
+                 @Nullable FormatterMetrics metrics) {
+        mMask = mask;
+        mMaskChars = mask == null ? new char[0] : mask.toCharArray();
+        boolean hasSlotChars = slotChars != null && slotChars.length > 0;
+        if (replacementChar != MaskFormatter.EMPTY)
+            mReplacementChar = replacementChar;
+        else
+            mReplacementChar = hasSlotChars ? MaskFormatter.DEFAULT_MASK_CHAR : findMostPopularChar(mMaskChars);
+
+        int slotCount = 0;
+        mPositionClasses = new SlotClass[mMaskChars.length];
+        for (int i = 0; i < mMaskChars.length; i++) {
+            SlotClass slotClass = mMaskChars[i] == mReplacementChar ? SlotClass.LETTER_OR_DIGIT : null;
+            for (int j = 0; hasSlotChars && j < slotChars.length; j++) {
+                if (slotChars[j] == mMaskChars[i])
+                    slotClass = slotClasses[j];
+            }
+            if (slotClass != null) {
+                mPositionClasses[i] = slotClass;
+                slotCount++;
+            }
+        }
+        mAcceptedChars = acceptedChars(mPositionClasses);
+
+        mSlotCount = slotCount;
+        mSlotPositions = new int[slotCount];
+        for (int i = 0, slot = 0; i < mMaskChars.length; i++) {
+            if (mPositionClasses[i] != null)
+                mSlotPositions[slot++] = i;
+        }
+        mSlotsBefore = slotsBefore(mPositionClasses, slotCount);
+        mRawToFormatted = rawToFormatted(mSlotPositions);
+
+        mMaskPrefix = maskPrefix;
+        mPrependPrefix = maskPrefix != null && mask != null && !mask.startsWith(maskPrefix);
+        mPrefixNecessarily = prefixNecessarily;
+        mIgnorePrefix = PrefixTrie.compile(ignorePrefix);
+        mIsMaskStrict = isMaskStrict;
+        mMetrics = metrics;
+
+        int elementsCount = 0;
+        for (int i = 0; i < mMaskChars.length; i++) {
+            if (!continuesSlotSequence(i))
+                elementsCount++;
+        }
+        mElementChars = new char[elementsCount];
+        mElementSlots = new int[elementsCount];
+        mElementClasses = new SlotClass[elementsCount];
+        for (int i = 0, element = -1; i < mMaskChars.length; i++) {
+            if (mPositionClasses[i] == null) {
+                mElementChars[++element] = mMaskChars[i];
+            } else {
+                if (!continuesSlotSequence(i))
+                    element++;
+                mElementSlots[element]++;
+                mElementClasses[element] = mPositionClasses[i];
+            }
+        }
+    }
+
+    /**
+     * Creates mask from precomputed tables, only cheap lookup tables are derived
+     *
+     * @see #read(ByteBuffer, FormatterMetrics)
+     */
+    private CompiledMask(@Nullable String mask, char replacementChar, @NonNull SlotClass[] positionClasses, @NonNull int[] slotPositions,
+                         @Nullable String maskPrefix, boolean prefixNecessarily, @Nullable PrefixTrie ignorePrefix, boolean isMaskStrict,
+                         @NonNull char[] elementChars, @NonNull int[] elementSlots, @NonNull SlotClass[] elementClasses,
+                         @Nullable FormatterMetrics metrics) {
+        mMask = mask;
+        mMaskChars = mask == null ? new char[0] : mask.toCharArray();
+        mReplacementChar = replacementChar;
+        mPositionClasses = positionClasses;
+        mAcceptedChars = acceptedChars(positionClasses);
+        mSlotPositions = slotPositions;
+        mSlotCount = slotPositions.length;
+        mSlotsBefore = slotsBefore(positionClasses, slotPositions.length);
+        mRawToFormatted = rawToFormatted(slotPositions);
+        mMaskPrefix = maskPrefix;
+        mPrependPrefix = maskPrefix != null && mask != null && !mask.startsWith(maskPrefix);
+        mPrefixNecessarily = prefixNecessarily;
+        mIgnorePrefix = ignorePrefix;
+        mIsMaskStrict = isMaskStrict;
+        mElementChars = elementChars;
+        mElementSlots = elementSlots;
+        mElementClasses = elementClasses;
+        mMetrics = metrics;
+    }
+
+    private static SlotClass acceptedChars(@NonNull SlotClass[] positionClasses) {
+        SlotClass acceptedChars = null;
+        for (SlotClass slotClass : positionClasses) {
+            if (slotClass != null)
+                acceptedChars = acceptedChars == null || acceptedChars.equals(slotClass) ? slotClass : acceptedChars.plus(slotClass);
+        }
+        return acceptedChars == null ? SlotClass.LETTER_OR_DIGIT : acceptedChars;
+    }
+
+    private static int[] slotsBefore(@NonNull SlotClass[] positionClasses, int slotCount) {
+        int[] slotsBefore = new int[positionClasses.length + 1];
+        for (int i = 0, slot = 0; i < positionClasses.length; i++) {
+            slotsBefore[i] = slot;
+            if (positionClasses[i] != null)
+                slot++;
+        }
+        slotsBefore[positionClasses.length] = slotCount;
+        return slotsBefore;
+    }
+
+    private static int[] rawToFormatted(@NonNull int[] slotPositions) {
+        int[] rawToFormatted = new int[slotPositions.length + 1];
+        rawToFormatted[0] = slotPositions.length > 0 ? slotPositions[0] : 0;
+        for (int slot = 0; slot < slotPositions.length; slot++) {
+            rawToFormatted[slot + 1] = slotPositions[slot] + 1;
+        }
+        return rawToFormatted;
+    }
+
+    /**
+     * Writes all tables of the mask, format is described in {@link MaskBundle}
+     */
+    void writeTo(@NonNull DataOutput out) throws IOException {
+        List<SlotClass> classes = new ArrayList<>();
+        for (SlotClass slotClass : mPositionClasses) {
+            if (slotClass != null && !classes.contains(slotClass))
+                classes.add(slotClass);
+        }
+        if (classes.size() > Byte.MAX_VALUE)
+            throw new IllegalStateException("Too many slot classes in mask: " + classes.size());
+
+        out.writeByte((mPrefixNecessarily ? FLAG_PREFIX_NECESSARILY : 0) | (mIsMaskStrict ? FLAG_STRICT : 0));
+        out.writeChar(mReplacementChar);
+        writeChars(out, mMask == null ? null : mMaskChars);
+        writeChars(out, mMaskPrefix == null ? null : mMaskPrefix.toCharArray());
+
+        out.writeByte(classes.size());
+        for (SlotClass slotClass : classes) {
+            slotClass.writeTo(out);
+        }
+        for (SlotClass slotClass : mPositionClasses) {
+            out.writeByte(slotClass == null ? -1 : classes.indexOf(slotClass));
+        }
+        out.writeInt(mSlotCount);
+        for (int position : mSlotPositions) {
+            out.writeInt(position);
+        }
+        out.writeInt(mElementChars.length);
+        for (int i = 0; i < mElementChars.length; i++) {
+            out.writeChar(mElementChars[i]);
+            out.writeInt(mElementSlots[i]);
+            out.writeByte(mElementClasses[i] == null ? -1 : classes.indexOf(mElementClasses[i]));
+        }
+        out.writeBoolean(mIgnorePrefix != null);
+        if (mIgnorePrefix != null)
+            mIgnorePrefix.writeTo(out);
+    }
+
+    /**
+     * Reads mask written by {@link #writeTo(DataOutput)} from the current position of buffer
+     */
+    static CompiledMask read(@NonNull ByteBuffer in, @Nullable FormatterMetrics metrics) {
+        int flags = in.get();
+        char replacementChar = in.getChar();
+        char[] maskChars = readChars(in);
+        char[] maskPrefix = readChars(in);
+
+        int classesCount = in.get();
+        if (classesCount < 0)
+            throw new IllegalArgumentException("Corrupted slot classes count: " + classesCount);
+        SlotClass[] classes = new SlotClass[classesCount];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = SlotClass.read(in);
+        }
+        SlotClass[] positionClasses = new SlotClass[maskChars == null ? 0 : maskChars.length];
+        for (int i = 0; i < positionClasses.length; i++) {
+            int index = in.get();
+            positionClasses[i] = index < 0 ? null : classes[index];
+        }
+        int[] slotPositions = new int[MaskBundle.readCount(in, 4)];
+        for (int i = 0; i < slotPositions.length; i++) {
+            int position = in.getInt();
+            if (position < 0 || position >= positionClasses.length || positionClasses[position] == null
+                    || (i > 0 && position <= slotPositions[i - 1]))
+                throw new IllegalArgumentException("Corrupted slot position: " + position);
+            slotPositions[i] = position;
+        }
+        // element is char, int slots count and byte class index
+        int elementsCount = MaskBundle.readCount(in, 7);
+        char[] elementChars = new char[elementsCount];
+        int[] elementSlots = new int[elementsCount];
+        SlotClass[] elementClasses = new SlotClass[elementsCount];
+        for (int i = 0; i < elementsCount; i++) {
+            elementChars[i] = in.getChar();
+            elementSlots[i] = in.getInt();
+            int index = in.get();
+            elementClasses[i] = index < 0 ? null : classes[index];
+        }
+        checkElements(maskChars == null ? new char[0] : maskChars, positionClasses, slotPositions.length,
+                elementChars, elementSlots, elementClasses);
+        PrefixTrie ignorePrefix = in.get() != 0 ? PrefixTrie.read(in) : null;
+
+        return new CompiledMask(maskChars == null ? null : new String(maskChars), replacementChar,
+                positionClasses, slotPositions, maskPrefix == null ? null : new String(maskPrefix),
+                (flags & FLAG_PREFIX_NECESSARILY) != 0, ignorePrefix, (flags & FLAG_STRICT) != 0,
+                elementChars, elementSlots, elementClasses, metrics);
+    }
+
+    /**
+     * Checks that read slots and elements describe the read mask, so corrupted entry fails at decoding instead of formatting
+     */
+    private static void checkElements(@NonNull char[] maskChars, @NonNull SlotClass[] positionClasses, int slotCount,
+                                      @NonNull char[] elementChars, @NonNull int[] elementSlots, @NonNull SlotClass[] elementClasses) {
+        int classesCount = 0;
+        for (SlotClass slotClass : positionClasses) {
+            if (slotClass != null)
+                classesCount++;
+        }
+        if (classesCount != slotCount)
+            throw new IllegalArgumentException("Mask has " + classesCount + " slot classes for " + slotCount + " slots");
+
+        int position = 0;
+        for (int element = 0; element < elementSlots.length; element++) {
+            int slots = elementSlots[element];
+            if (slots == 0) {
+                if (position >= maskChars.length || positionClasses[position] != null || elementClasses[element] != null
+                        || elementChars[element] != maskChars[position])
+                    throw new IllegalArgumentException("Corrupted literal element at mask position " + position);
+                position++;
+                continue;
+            }
+            if (slots < 0 || slots > maskChars.length - position || elementClasses[element] == null)
+                throw new IllegalArgumentException("Corrupted slots element at mask position " + position);
+            for (int end = position + slots; position < end; position++) {
+                if (!elementClasses[element].equals(positionClasses[position]))
+                    throw new IllegalArgumentException("Corrupted slots element at mask position " + position);
+            }
+        }
+        if (position != maskChars.length)
+            throw new IllegalArgumentException("Elements cover " + position + " of " + maskChars.length + " mask chars");
+    }
+
+    private static void writeChars(@NonNull DataOutput out, @Nullable char[] chars) throws IOException {
+        out.writeInt(chars == null ? -1 : chars.length);
+        for (int i = 0; chars != null && i < chars.length; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    @Nullable
+    private static char[] readChars(@NonNull ByteBuffer in) {
+        if (in.getInt(in.position()) == -1) {
+            in.getInt();
+            return null;
+        }
+        char[] chars = new char[MaskBundle.readCount(in, 2)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = in.getChar();
+        }
+        return chars;
+    }
+
+    /**
+     * Returns true if mask position is a slot with the same class as the previous position
+     */
+    private boolean continuesSlotSequence(int position) {
+        return position > 0 && mPositionClasses[position] != null && mPositionClasses[position].equals(mPositionClasses[position - 1]);
+    }
+
+    public String getMask() {
+        return mMask;
+    }
+
+    public char getReplacementChar() {
+        return mReplacementChar;
+    }
+
+    /**
+     * Returns count of replacement chars in mask, i.e. maximum count of source chars that can be formatted
+     */
+    public int getSlotCount() {
+        return mSlotCount;
+    }
+
+    /**
+     * Returns class of chars accepted by slot with given index
+     */
+    @NonNull
+    public SlotClass getSlotClass(int slot) {
+        return mPositionClasses[mSlotPositions[slot]];
+    }
+
+    /**
+     * Returns true if the char is accepted at least by one slot of mask. Mask without slots accepts letters and digits
+     */
+    public boolean accepts(char symbol) {
+        return mAcceptedChars.accepts(symbol);
+    }
+
+    @Nullable
+    public String getMaskPrefix() {
+        return mMaskPrefix;
+    }
+
+    public boolean isPrefixNecessarily() {
+        return mPrefixNecessarily;
+    }
+
+    public boolean isMaskStrict() {
+        return mIsMaskStrict;
+    }
+
+    /**
+     * Returns length of mask prefix prepended to formatted text, or 0 if prefix is not prepended
+     */
+    public int getPrefixLength() {
+        return mPrependPrefix ? mMaskPrefix.length() : 0;
+    }
+
+    /**
+     * Returns position in formatted text right after given count of raw chars, i.e. where the caret should be placed.
+     * <br/>Position is taken from precomputed table, mask prefix is accounted for.
+     * Result may exceed the length of partially filled text, so clamp it to the text length.
+     * Not applicable to source passed through non-strict mask as is.
+     *
+     * @param rawOffset count of raw chars before the caret, clamped to [0, slot count]
+     */
+    public int toFormattedOffset(int rawOffset) {
+        return getPrefixLength() + mRawToFormatted[Math.max(0, Math.min(rawOffset, mSlotCount))];
+    }
+
+    /**
+     * Returns count of raw chars placed before given position of formatted text.
+     * <br/>Position is taken from precomputed table, mask prefix is accounted for.
+     *
+     * @param formattedOffset position in formatted text, clamped to the text with the whole mask
+     */
+    public int toRawOffset(int formattedOffset) {
+        return mSlotsBefore[Math.max(0, Math.min(formattedOffset - getPrefixLength(), mMaskChars.length))];
+    }
+
+    /**
+     * Returns count of replacement chars filled in text, which is formatted from cleared source, like {@code format(clear(source))}.
+     * <br/>Source can be raw input or formatted text. Source is walked against the mask without building strings and metrics are not reported.
+     */
+    public int filledSlots(@Nullable CharSequence source) {
+        if (mSlotCount == 0 || isEmpty(source))
+            return 0;
+
+        int from = maskPrefixLength(source);
+        int filledSlots = filledSlots(source, from, true);
+        // clear returns source as is, if it doesn't match the mask
+        return filledSlots >= 0 ? filledSlots : filledSlots(source, from, false);
+    }
+
+    /**
+     * Fills replacement chars with source chars kept by clear, after the longest ignored input prefix of them
+     *
+     * @param isCleared true to keep only chars of mask slots, like clear does, false to keep all chars
+     * @return count of filled replacement chars, or -1 if source doesn't match the mask and can't be cleared
+     */
+    private int filledSlots(@NonNull CharSequence source, int from, boolean isCleared) {
+        int ignored = ignoredClearedLength(source, from, isCleared);
+        if (ignored < 0)
+            return -1;
+
+        int filledSlots = 0;
+        for (int i = from, kept = 0, element = 0, filled = 0, length = source.length(); i < length; i++) {
+            char symbol = source.charAt(i);
+            if (isCleared) {
+                int next = clearElement(element, filled, symbol);
+                if (next < 0)
+                    return -1;
+                if (next != element) {
+                    element = next;
+                    filled = 0;
+                }
+                if (mElementSlots[element] == 0)
+                    continue;
+                filled++;
+            } else if (filledSlots == mSlotCount) {
+                break;
+            }
+            if (kept++ >= ignored && filledSlots < mSlotCount && mPositionClasses[mSlotPositions[filledSlots]].accepts(symbol))
+                filledSlots++;
+        }
+        return filledSlots;
+    }
+
+    /**
+     * Returns true if all replacement chars are filled in text formatted from source
+     *
+     * @see #filledSlots(CharSequence)
+     */
+    public boolean isComplete(@Nullable CharSequence source) {
+        return filledSlots(source) == mSlotCount;
+    }
+
+    /**
+     * Checks that text is formatted with the mask: mask prefix goes first if it is prepended, then every char matches its mask position.
+     * Literal chars must be equal, replacement chars must be accepted by slot class.
+     * <br/>Text may end at any mask position, use {@link #isComplete(CharSequence)} to check that all replacement chars are filled.
+     *
+     * @return -1 if text is valid, otherwise index of the first char which doesn't match the mask
+     */
+    public int validate(@Nullable CharSequence text) {
+        if (text == null || mMaskChars.length == 0)
+            return -1;
+        if (!mPrependPrefix)
+            return mismatch(text, 0);
+
+        int prefixLength = mMaskPrefix.length();
+        for (int i = 0, length = Math.min(prefixLength, text.length()); i < length; i++) {
+            if (text.charAt(i) != mMaskPrefix.charAt(i))
+                return i;
+        }
+        int withPrefix = mismatch(text, prefixLength);
+        if (withPrefix < 0)
+            return -1;
+        // prefix is not prepended to the result, which already starts with it
+        int withoutPrefix = mismatch(text, 0);
+        return withoutPrefix < 0 ? -1 : Math.max(withPrefix, withoutPrefix);
+    }
+
+    /**
+     * Returns index of the first char of text, which doesn't match mask started at given index, or -1 if all chars match
+     */
+    private int mismatch(@NonNull CharSequence text, int from) {
+        for (int i = from, length = text.length(); i < length; i++) {
+            int position = i - from;
+            if (position >= mMaskChars.length)
+                return i;
+            SlotClass slotClass = mPositionClasses[position];
+            if (slotClass == null ? text.charAt(i) != mMaskChars[position] : !slotClass.accepts(text.charAt(i)))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns count of source chars kept by clear, which are taken by the longest ignored input prefix,
+     * or -1 if source doesn't match the mask and can't be cleared
+     */
+    private int ignoredClearedLength(@NonNull CharSequence source, int from, boolean isCleared) {
+        if (mIgnorePrefix == null)
+            return 0;
+
+        int longest = 0;
+        int node = PrefixTrie.ROOT;
+        for (int i = from, kept = 0, element = 0, filled = 0, length = source.length(); i < length; i++) {
+            char symbol = source.charAt(i);
+            if (isCleared) {
+                int next = clearElement(element, filled, symbol);
+                if (next < 0)
+                    return -1;
+                if (next != element) {
+                    element = next;
+                    filled = 0;
+                }
+                if (mElementSlots[element] == 0)
+                    continue;
+                filled++;
+            }
+            node = mIgnorePrefix.child(node, symbol);
+            if (node < 0)
+                break;
+            kept++;
+            if (mIgnorePrefix.value(node) >= 0)
+                longest = kept;
+        }
+        return longest;
+    }
+
+    /**
+     * @see MaskFormatter#format(String)
+     */
+    public String format(String source) {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null)
+            return formatString(source);
+
+        long start = System.nanoTime();
+        try {
+            return formatString(source);
+        } finally {
+            metrics.onFormat(System.nanoTime() - start);
+        }
+    }
+
+    private String formatString(String source) {
+
+        if (mMaskChars.length == 0)
+            return source;
+
+        if (isEmpty(source))
+            return mPrefixNecessarily ? mMaskPrefix : source;
+
+        if (isPassThrough(source)) {
+            onPassThrough();
+            return source;
+        }
+
+        char[] result = new char[(mPrependPrefix ? mMaskPrefix.length() : 0) + mMaskChars.length];
+        return new String(result, 0, writeFormatted(source, result, 0));
+    }
+
+    /**
+     * @see MaskFormatter#formatTo(CharSequence, char[], int)
+     */
+    public int formatTo(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null)
+            return formatArray(source, destination, offset);
+
+        long start = System.nanoTime();
+        try {
+            return formatArray(source, destination, offset);
+        } finally {
+            metrics.onFormat(System.nanoTime() - start);
+        }
+    }
+
+    private int formatArray(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        int length = formattedLength(source);
+        if (offset < 0 || destination.length - offset < length)
+            throw new IndexOutOfBoundsException("Destination has no space for " + length + " chars at offset " + offset);
+
+        if (mMaskChars.length == 0 || isPassThrough(source)) {
+            if (mMaskChars.length > 0)
+                onPassThrough();
+            copyChars(source, destination, offset);
+            return length;
+        }
+        if (isEmpty(source)) {
+            if (length > 0)
+                mMaskPrefix.getChars(0, length, destination, offset);
+            return length;
+        }
+        return writeFormatted(source, destination, offset);
+    }
+
+    /**
+     * @see MaskFormatter#formatTo(CharSequence, StringBuilder)
+     */
+    public int formatTo(@Nullable CharSequence source, @NonNull StringBuilder destination) {
+        try {
+            return formatTo(source, (Appendable) destination);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @see MaskFormatter#formatTo(CharSequence, Appendable)
+     */
+    public int formatTo(@Nullable CharSequence source, @NonNull Appendable destination) throws IOException {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null)
+            return formatAppendable(source, destination);
+
+        long start = System.nanoTime();
+        try {
+            return formatAppendable(source, destination);
+        } finally {
+            metrics.onFormat(System.nanoTime() - start);
+        }
+    }
+
+    private int formatAppendable(@Nullable CharSequence source, @NonNull Appendable destination) throws IOException {
+        if (mMaskChars.length == 0 || isPassThrough(source)) {
+            if (mMaskChars.length > 0)
+                onPassThrough();
+            if (source != null)
+                destination.append(source);
+            return source == null ? 0 : source.length();
+        }
+        if (isEmpty(source)) {
+            if (mPrefixNecessarily && mMaskPrefix != null) {
+                destination.append(mMaskPrefix);
+                return mMaskPrefix.length();
+            }
+            return 0;
+        }
+
+        int from = ignoredPrefixLength(source);
+        if (from > 0)
+            onPrefixStrip();
+        int resultLength = formattedLength(filledSlots(source, from));
+        int prefixLength = 0;
+        if (mPrependPrefix && !startsWithPrefix(source, from, resultLength)) {
+            destination.append(mMaskPrefix);
+            prefixLength = mMaskPrefix.length();
+        }
+        for (int i = 0, index = from; i < resultLength; i++) {
+            char symbol = mMaskChars[i];
+            SlotClass slotClass = mPositionClasses[i];
+            if (slotClass != null) {
+                index = nextAccepted(source, index, slotClass);
+                symbol = source.charAt(index++);
+            }
+            destination.append(symbol);
+        }
+        return prefixLength + resultLength;
+    }
+
+    /**
+     * Returns length of {@link #format(String)} result for the given source, without formatting it.
+     * <br/>Use it to allocate destination for {@link #formatTo(CharSequence, char[], int)}
+     */
+    public int formattedLength(@Nullable CharSequence source) {
+        if (mMaskChars.length == 0 || isPassThrough(source))
+            return source == null ? 0 : source.length();
+
+        if (isEmpty(source))
+            return mPrefixNecessarily && mMaskPrefix != null ? mMaskPrefix.length() : 0;
+
+        int from = ignoredPrefixLength(source);
+        int resultLength = formattedLength(filledSlots(source, from));
+        if (mPrependPrefix && !startsWithPrefix(source, from, resultLength))
+            return mMaskPrefix.length() + resultLength;
+        return resultLength;
+    }
+
+    /**
+     * @see MaskFormatter#formatAll(String[], Executor)
+     */
+    @NonNull
+    public String[] formatAll(@NonNull String[] sources, @Nullable Executor executor) {
+        String[] results = new String[sources.length];
+        MaskBatch.process(this, sources, results, false, executor);
+        return results;
+    }
+
+    /**
+     * @see MaskFormatter#formatAll(List, Executor)
+     */
+    @NonNull
+    public List<String> formatAll(@NonNull List<? extends CharSequence> sources, @Nullable Executor executor) {
+        String[] results = new String[sources.size()];
+        MaskBatch.process(this, batchSource(sources), results, false, executor);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @see MaskFormatter#clear(String)
+     */
+    public String clear(String source) {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null)
+            return clearString(source);
+
+        long start = System.nanoTime();
+        try {
+            return clearString(source);
+        } finally {
+            metrics.onClear(System.nanoTime() - start);
+        }
+    }
+
+    private String clearString(String source) {
+
+        if (mMaskChars.length == 0 || isEmpty(source))
+            return source;
+
+        int from = clearedPrefixLength(source);
+        char[] result = new char[source.length() - from];
+        int resultLength = clearTo(source, from, result, 0);
+
+        if (resultLength < 0) {
+            onClearMismatch();
+            return source.substring(from);
+        }
+        return new String(result, 0, resultLength);
+    }
+
+    /**
+     * @see MaskFormatter#clearTo(CharSequence, char[], int)
+     */
+    public int clearTo(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null)
+            return clearArray(source, destination, offset);
+
+        long start = System.nanoTime();
+        try {
+            return clearArray(source, destination, offset);
+        } finally {
+            metrics.onClear(System.nanoTime() - start);
+        }
+    }
+
+    private int clearArray(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        if (source == null)
+            return 0;
+
+        int from = mMaskChars.length == 0 ? 0 : clearedPrefixLength(source);
+        int length = source.length() - from;
+        if (offset < 0 || destination.length - offset < length)
+            throw new IndexOutOfBoundsException("Destination has no space for " + length + " chars at offset " + offset);
+
+        int resultLength = mMaskChars.length == 0 ? -1 : clearTo(source, from, destination, offset);
+        if (resultLength < 0) {
+            if (mMaskChars.length > 0)
+                onClearMismatch();
+            for (int i = 0; i < length; i++) {
+                destination[offset + i] = source.charAt(from + i);
+            }
+            return length;
+        }
+        return resultLength;
+    }
+
+    /**
+     * @see MaskFormatter#clearStatic(String)
+     */
+    public String clearStatic(String source) {
+        FormatterMetrics metrics = mMetrics;
+        if (metrics == null)
+            return clearStaticString(source);
+
+        long start = System.nanoTime();
+        try {
+            return clearStaticString(source);
+        } finally {
+            metrics.onClearStatic(System.nanoTime() - start);
+        }
+    }
+
+    private String clearStaticString(String source) {
+
+        if (mMaskChars.length == 0 || isEmpty(source))
+            return source;
+
+        int from = clearedPrefixLength(source);
+        if (clearTo(source, from, null, 0) < 0) {
+            onClearMismatch();
+            return source.substring(from);
+        }
+
+        StringBuilder cleanTextBuilder = new StringBuilder(mSlotCount);
+        int length = Math.min(mMaskChars.length, source.length() - from);
+        for (int slot = 0; slot < mSlotCount && mSlotPositions[slot] < length; slot++) {
+            cleanTextBuilder.append(source.charAt(from + mSlotPositions[slot]));
+        }
+        return cleanTextBuilder.toString();
+    }
+
+    /**
+     * @see MaskFormatter#clearAll(String[], Executor)
+     */
+    @NonNull
+    public String[] clearAll(@NonNull String[] sources, @Nullable Executor executor) {
+        String[] results = new String[sources.length];
+        MaskBatch.process(this, sources, results, true, executor);
+        return results;
+    }
+
+    /**
+     * @see MaskFormatter#clearAll(List, Executor)
+     */
+    @NonNull
+    public List<String> clearAll(@NonNull List<? extends CharSequence> sources, @Nullable Executor executor) {
+        String[] results = new String[sources.size()];
+        MaskBatch.process(this, batchSource(sources), results, true, executor);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Lists without fast random access are copied to array before splitting to chunks
+     */
+    private static Object batchSource(@NonNull List<? extends CharSequence> sources) {
+        return sources instanceof RandomAccess ? sources : sources.toArray(new CharSequence[sources.size()]);
+    }
+
+    /**
+     * Walks the source against mask elements in a single pass and copies chars placed in replacement sequences to the result.
+     * <br/>Literals may be skipped or repeated in source, replacement sequences accept any count of letters and digits.
+     * A letter or digit equal to the literal which follows a completely filled replacement sequence is considered as literal,
+     * so masks like ####z are cleared correctly.
+     *
+     * @param from   index of the first source char to walk
+     * @param result destination array with enough space for the rest of source after offset, or null to check the source only
+     * @return count of chars written to result, or -1 if source does not match the mask
+     */
+    private int clearTo(@NonNull CharSequence source, int from, @Nullable char[] result, int offset) {
+        int element = 0;
+        int filled = 0;
+        int resultLength = 0;
+        for (int i = from, length = source.length(); i < length; i++) {
+            char symbol = source.charAt(i);
+            int next = clearElement(element, filled, symbol);
+            if (next < 0)
+                return -1;
+            if (next != element) {
+                element = next;
+                filled = 0;
+            }
+            if (mElementSlots[element] > 0) {
+                if (result != null)
+                    result[offset + resultLength] = symbol;
+                resultLength++;
+                filled++;
+            }
+        }
+        return resultLength;
+    }
+
+    /**
+     * Returns element, which takes the symbol after given element with given count of filled chars, or -1 if there is no such element
+     */
+    private int clearElement(int element, int filled, char symbol) {
+        SlotClass slotClass = mElementClasses[element];
+        if (slotClass == null)
+            return mElementChars[element] == symbol ? element : findElement(element + 1, symbol);
+        if (!slotClass.accepts(symbol))
+            return findElement(element + 1, symbol);
+        if (filled >= mElementSlots[element] && element + 1 < mElementSlots.length
+                && mElementClasses[element + 1] == null && mElementChars[element + 1] == symbol)
+            return element + 1;
+        return element;
+    }
+
+    /**
+     * Returns index of the first element starting from given, which accepts the symbol, or -1 if there is no such element
+     */
+    private int findElement(int from, char symbol) {
+        for (int element = from; element < mElementSlots.length; element++) {
+            SlotClass slotClass = mElementClasses[element];
+            if (slotClass == null ? mElementChars[element] == symbol : slotClass.accepts(symbol))
+                return element;
+        }
+        return -1;
+    }
+
+    int maskLength() {
+        return mMaskChars.length;
+    }
+
+    char maskCharAt(int position) {
+        return mMaskChars[position];
+    }
+
+    boolean isSlot(int position) {
+        return mPositionClasses[position] != null;
+    }
+
+    /**
+     * Returns mask position of replacement char with given index
+     */
+    int slotPosition(int slot) {
+        return mSlotPositions[slot];
+    }
+
+    /**
+     * Returns count of replacement chars before given mask position. Position equal to mask length is allowed
+     */
+    int slotsBefore(int position) {
+        return mSlotsBefore[position];
+    }
+
+    /**
+     * Returns true if mask prefix is prepended to formatted text, unless the text already starts with it
+     */
+    boolean prependsPrefix() {
+        return mPrependPrefix;
+    }
+
+    /**
+     * Non-strict mask is not applied to source longer then count of replacement chars
+     */
+    private boolean isPassThrough(@Nullable CharSequence source) {
+        return !mIsMaskStrict && source != null && source.length() > mSlotCount;
+    }
+
+    /**
+     * Writes non-empty source formatted with mask to destination, which must have enough space
+     *
+     * @return count of written chars
+     */
+    private int writeFormatted(@NonNull CharSequence source, @NonNull char[] destination, int offset) {
+        int from = ignoredPrefixLength(source);
+        if (from > 0)
+            onPrefixStrip();
+        int resultLength = formattedLength(filledSlots(source, from));
+        int prefixLength = 0;
+        if (mPrependPrefix && !startsWithPrefix(source, from, resultLength)) {
+            prefixLength = mMaskPrefix.length();
+            mMaskPrefix.getChars(0, prefixLength, destination, offset);
+        }
+        offset += prefixLength;
+        for (int i = 0, index = from; i < resultLength; i++) {
+            char symbol = mMaskChars[i];
+            SlotClass slotClass = mPositionClasses[i];
+            if (slotClass != null) {
+                index = nextAccepted(source, index, slotClass);
+                symbol = source.charAt(index++);
+            }
+            destination[offset + i] = symbol;
+        }
+        return prefixLength + resultLength;
+    }
+
+    /**
+     * Returns count of replacement chars, which would be filled with chars of source starting from given index.
+     * <br/>Every slot takes the next source char accepted by its class, other chars are skipped
+     */
+    private int filledSlots(@NonNull CharSequence source, int from) {
+        int filledSlots = 0;
+        for (int i = from, length = source.length(); i < length && filledSlots < mSlotCount; i++) {
+            if (mPositionClasses[mSlotPositions[filledSlots]].accepts(source.charAt(i)))
+                filledSlots++;
+        }
+        return filledSlots;
+    }
+
+    private static int nextAccepted(@NonNull CharSequence source, int from, @NonNull SlotClass slotClass) {
+        while (!slotClass.accepts(source.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Returns length of formatted mask part for given count of filled replacement chars.
+     * <br/>Literals after the last filled replacement char are appended only when the whole mask is filled
+     */
+    int formattedLength(int filledSlots) {
+        if (filledSlots == mSlotCount)
+            return mMaskChars.length;
+        if (filledSlots == 0)
+            return 0;
+        return mSlotPositions[filledSlots - 1] + 1;
+    }
+
+    /**
+     * Returns length of the longest ignored input prefix, which the source starts with
+     */
+    int ignoredPrefixLength(@NonNull CharSequence source) {
+        return mIgnorePrefix == null ? 0 : mIgnorePrefix.longestMatch(source);
+    }
+
+    /**
+     * Checks if formatted result of given length starts with mask prefix, without building the result
+     */
+    boolean startsWithPrefix(@NonNull CharSequence source, int from, int resultLength) {
+        int prefixLength = mMaskPrefix.length();
+        if (resultLength < prefixLength)
+            return false;
+        for (int i = 0, index = from; i < prefixLength; i++) {
+            char symbol = mMaskChars[i];
+            SlotClass slotClass = mPositionClasses[i];
+            if (slotClass != null) {
+                index = nextAccepted(source, index, slotClass);
+                symbol = source.charAt(index++);
+            }
+            if (symbol != mMaskPrefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(@NonNull CharSequence source, @NonNull CharSequence prefix) {
+        int prefixLength = prefix.length();
+        if (source.length() < prefixLength)
+            return false;
+        for (int i = 0; i < prefixLength; i++) {
+            if (source.charAt(i) != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static void copyChars(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        if (source == null)
+            return;
+        for (int i = 0, length = source.length(); i < length; i++) {
+            destination[offset + i] = source.charAt(i);
+        }
+    }
+
+    private static boolean isEmpty(@Nullable CharSequence source) {
+        return source == null || source.length() == 0;
+    }
+
+    /**
+     * Returns count of mask prefix chars at the start of source, which should be skipped while clearing.
+     * If source is a beginning of mask prefix, the whole source is skipped
+     */
+    private int clearedPrefixLength(@NonNull CharSequence source) {
+        int length = maskPrefixLength(source);
+        if (length > 0)
+            onPrefixStrip();
+        return length;
+    }
+
+    /**
+     * Returns length of mask prefix or its part, which the source starts with
+     */
+    private int maskPrefixLength(@NonNull CharSequence source) {
+        if (mMaskPrefix == null)
+            return 0;
+        if (source.length() < mMaskPrefix.length() && startsWith(mMaskPrefix, source))
+            return source.length();
+        if (startsWith(source, mMaskPrefix))
+            return mMaskPrefix.length();
+        return 0;
+    }
+
+    private void onPassThrough() {
+        if (mMetrics != null)
+            mMetrics.onPassThrough();
+    }
+
+    private void onPrefixStrip() {
+        if (mMetrics != null)
+            mMetrics.onPrefixStrip();
+    }
+
+    private void onClearMismatch() {
+        if (mMetrics != null)
+            mMetrics.onClearMismatch();
+    }
+
+    /**
+     * Finds the most frequently used char in mask. If several chars are used equally often, the first one in mask wins
+     */
+    private static char findMostPopularChar(char[] maskChars) {
+        char mostPopularChar = MaskFormatter.DEFAULT_MASK_CHAR;
+        int biggestCounter = 0;
+
+        for (int i = 0; i < maskChars.length; i++) {
+            char element = maskChars[i];
+            // chars of surrogate pairs are literals, so the pair is never split by slot
+            if (CharClassifier.isSurrogate(element))
+                continue;
+            boolean isCounted = false;
+            for (int j = 0; j < i; j++) {
+                if (maskChars[j] == element) {
+                    isCounted = true;
+                    break;
+                }
+            }
+            if (isCounted)
+                continue;
+
+            int counter = 0;
+            for (int j = i; j < maskChars.length; j++) {
+                if (maskChars[j] == element)
+                    counter++;
+            }
+            if (counter > biggestCounter) {
+                biggestCounter = counter;
+                mostPopularChar = element;
+            }
+        }
+        return mostPopularChar;
+    }
+}
@@ -0,0 +1,280 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Streams delimiter separated records from {@link Reader} to {@link Writer}, formatting or clearing selected columns.
+ * <br/>Columns without mask are copied as is, char by char. Values of masked columns are collected into reusable buffer,
+ * processed with {@link CompiledMask#formatTo(CharSequence, char[], int)} or {@link CompiledMask#clearTo(CharSequence, char[], int)}
+ * and written back, so memory usage does not depend on input size and no objects are allocated per field.
+ * <br/>Quoted values are supported ({@code "a ""quoted"" value"}), masked values are quoted in output if they were quoted in input,
+ * or if the result contains delimiter, quote or line break. Line breaks are copied as is.
+ * <pre>
+ * {@code
+ * CsvMaskProcessor processor = new CsvMaskProcessor(',')
+ *                  .skipHeader(true)
+ *                  .format(2, MaskFormatter.get().mask("+7 (###) ###-##-##").ignoreInputPrefixes("+7", "7", "8").build())
+ *                  .clear(4, MaskFormatter.get().mask("#### #### #### ####").build());
+ * processor.process(reader, writer);
+ * }
+ * </pre>
+ * Not thread safe, buffers are reused between {@link #process(Reader, Writer)} calls.
+ *
+ * @author Grishko Nikita
+ */
+public final class CsvMaskProcessor {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char QUOTE = '"';
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final char mDelimiter;
+    private boolean mSkipHeader;
+
+    private CompiledMask[] mMasks = new CompiledMask[0];
+    private boolean[] mClear = new boolean[0];
+
+    private final char[] mInput = new char[BUFFER_SIZE];
+    private final char[] mOutput = new char[BUFFER_SIZE];
+    private int mOutputLength;
+    private final StringBuilder mField = new StringBuilder();
+    private char[] mResult = new char[64];
+
+    private Writer mWriter;
+    private int mState;
+    private int mColumn;
+    private boolean mIsFieldQuoted;
+
+    public CsvMaskProcessor(char delimiter) {
+        if (delimiter == QUOTE || delimiter == '\n' || delimiter == '\r')
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        mDelimiter = delimiter;
+    }
+
+    /**
+     * Switch if the first record should be copied without changes.
+     * By default this parameter is false.
+     */
+    public CsvMaskProcessor skipHeader(boolean value) {
+        mSkipHeader = value;
+        return this;
+    }
+
+    /**
+     * Format values of the column with given zero based index
+     */
+    public CsvMaskProcessor format(int column, @NonNull CompiledMask mask) {
+        return column(column, mask, false);
+    }
+
+    /**
+     * Clear values of the column with given zero based index
+     */
+    public CsvMaskProcessor clear(int column, @NonNull CompiledMask mask) {
+        return column(column, mask, true);
+    }
+
+    private CsvMaskProcessor column(int column, @NonNull CompiledMask mask, boolean clear) {
+        if (column < 0)
+            throw new IllegalArgumentException("Column index must not be negative: " + column);
+        if (column >= mMasks.length) {
+            mMasks = Arrays.copyOf(mMasks, column + 1);
+            mClear = Arrays.copyOf(mClear, column + 1);
+        }
+        mMasks[column] = mask;
+        mClear[column] = clear;
+        return this;
+    }
+
+    /**
+     * Reads all records from reader and writes processed records to writer. Neither reader nor writer is closed
+     *
+     * @return count of processed records, including header
+     */
+    public long process(@NonNull Reader reader, @NonNull Writer writer) throws IOException {
+        mWriter = writer;
+        mOutputLength = 0;
+        mField.setLength(0);
+        mState = FIELD_START;
+        mColumn = 0;
+        mIsFieldQuoted = false;
+
+        long records = 0;
+        boolean isHeader = mSkipHeader;
+        boolean isRecordEmpty = true;
+        try {
+            int read;
+            while ((read = reader.read(mInput, 0, mInput.length)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    char symbol = mInput[i];
+                    boolean isLineBreak = symbol == '\n' || symbol == '\r';
+
+                    if (isHeader) {
+                        write(symbol);
+                        if (symbol == QUOTE)
+                            mIsFieldQuoted = !mIsFieldQuoted;
+                        if (isLineBreak && !mIsFieldQuoted) {
+                            isHeader = false;
+                            isRecordEmpty = true;
+                            records++;
+                        } else {
+                            isRecordEmpty = false;
+                        }
+                        continue;
+                    }
+                    // empty lines and the second char of "\r\n" are copied and are not counted as records
+                    if (isLineBreak && isRecordEmpty) {
+                        write(symbol);
+                        continue;
+                    }
+                    isRecordEmpty = false;
+                    if (accept(symbol)) {
+                        records++;
+                        isRecordEmpty = true;
+                    }
+                }
+            }
+            if (!isRecordEmpty) {
+                if (!isHeader)
+                    endField();
+                records++;
+            }
+            flush();
+        } finally {
+            mWriter = null;
+        }
+        return records;
+    }
+
+    /**
+     * Handles next char of record
+     *
+     * @return true if the char finished record
+     */
+    private boolean accept(char symbol) throws IOException {
+        CompiledMask mask = mColumn < mMasks.length ? mMasks[mColumn] : null;
+        switch (mState) {
+            case FIELD_START:
+                if (symbol == QUOTE) {
+                    mState = QUOTED;
+                    mIsFieldQuoted = true;
+                    if (mask == null)
+                        write(symbol);
+                    return false;
+                }
+                mState = UNQUOTED;
+                return acceptUnquoted(symbol, mask);
+            case QUOTED:
+                if (symbol == QUOTE)
+                    mState = QUOTE_IN_QUOTED;
+                else if (mask != null)
+                    mField.append(symbol);
+                if (mask == null)
+                    write(symbol);
+                return false;
+            case QUOTE_IN_QUOTED:
+                if (symbol == QUOTE) {
+                    mState = QUOTED;
+                    if (mask == null)
+                        write(symbol);
+                    else
+                        mField.append(symbol);
+                    return false;
+                }
+                mState = UNQUOTED;
+                return acceptUnquoted(symbol, mask);
+            default:
+                return acceptUnquoted(symbol, mask);
+        }
+    }
+
+    private boolean acceptUnquoted(char symbol, CompiledMask mask) throws IOException {
+        if (symbol == mDelimiter) {
+            endField();
+            write(symbol);
+            mColumn++;
+            return false;
+        }
+        if (symbol == '\n' || symbol == '\r') {
+            endField();
+            write(symbol);
+            mColumn = 0;
+            return true;
+        }
+        if (mask == null)
+            write(symbol);
+        else
+            mField.append(symbol);
+        return false;
+    }
+
+    /**
+     * Writes processed value of masked column and prepares for the next field
+     */
+    private void endField() throws IOException {
+        CompiledMask mask = mColumn < mMasks.length ? mMasks[mColumn] : null;
+        if (mask != null) {
+            boolean clear = mClear[mColumn];
+            int capacity = clear ? mField.length() : mask.formattedLength(mField);
+            if (capacity > mResult.length)
+                mResult = new char[Math.max(capacity, mResult.length * 2)];
+            int length = clear ? mask.clearTo(mField, mResult, 0) : mask.formatTo(mField, mResult, 0);
+            writeValue(mResult, length, mIsFieldQuoted);
+            mField.setLength(0);
+        }
+        mState = FIELD_START;
+        mIsFieldQuoted = false;
+    }
+
+    private void writeValue(char[] value, int length, boolean quote) throws IOException {
+        for (int i = 0; i < length && !quote; i++) {
+            char symbol = value[i];
+            quote = symbol == mDelimiter || symbol == QUOTE || symbol == '\n' || symbol == '\r';
+        }
+        if (!quote) {
+            write(value, length);
+            return;
+        }
+        write(QUOTE);
+        for (int i = 0; i < length; i++) {
+            if (value[i] == QUOTE)
+                write(QUOTE);
+            write(value[i]);
+        }
+        write(QUOTE);
+    }
+
+    private void write(char symbol) throws IOException {
+        if (mOutputLength == mOutput.length)
+            flush();
+        mOutput[mOutputLength++] = symbol;
+    }
+
+    private void write(char[] chars, int length) throws IOException {
+        if (length > mOutput.length - mOutputLength) {
+            flush();
+            if (length > mOutput.length) {
+                mWriter.write(chars, 0, length);
+                return;
+            }
+        }
+        System.arraycopy(chars, 0, mOutput, mOutputLength, length);
+        mOutputLength += length;
+    }
+
+    private void flush() throws IOException {
+        if (mOutputLength > 0) {
+            mWriter.write(mOutput, 0, mOutputLength);
+            mOutputLength = 0;
+        }
+    }
+}
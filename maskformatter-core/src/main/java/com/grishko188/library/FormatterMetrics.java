@@ -0,0 +1,49 @@
+package com.grishko188.library;
+
+/**
+ * Listener of formatting events, set with {@link MaskFormatter#metrics(FormatterMetrics)}
+ * and {@code MaskTextWatcher#metrics(FormatterMetrics)}.
+ * <br/>Methods are called on the formatting thread, right on the hot path, so implementations must be fast and thread safe.
+ * Use {@link MaskMetrics} to count events with low overhead. When no listener is set, nothing is measured.
+ *
+ * @author Grishko Nikita
+ */
+public interface FormatterMetrics {
+
+    /**
+     * Called after every {@code format} or {@code formatTo} call
+     */
+    void onFormat(long durationNanos);
+
+    /**
+     * Called after every {@code clear} or {@code clearTo} call
+     */
+    void onClear(long durationNanos);
+
+    void onClearStatic(long durationNanos);
+
+    /**
+     * Called when source does not match the mask, and clearing returns it unchanged
+     */
+    void onClearMismatch();
+
+    /**
+     * Called when non-strict mask is not applied to source longer then mask
+     */
+    void onPassThrough();
+
+    /**
+     * Called when ignored input prefix is removed while formatting, or mask prefix is removed while clearing
+     */
+    void onPrefixStrip();
+
+    /**
+     * Called after text watcher formatted user edit
+     */
+    void onWatcherEdit(long durationNanos);
+
+    /**
+     * Called when text watcher receives the change made by itself
+     */
+    void onWatcherSelfChange();
+}
@@ -0,0 +1,244 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.nio.CharBuffer;
+
+/**
+ * Keeps raw (clear) value of formatted text and applies edits of the formatted text to it,
+ * instead of clearing and formatting the whole text on every change.
+ * <br/>Edit is described the same way as in {@code TextWatcher#onTextChanged}: {@code before} chars starting from {@code start}
+ * were replaced with {@code count} new chars. Only replacement chars inside the edited range are changed in raw value,
+ * then formatted text is rebuilt from raw value into reusable buffer. Result is the same as
+ * {@code mask.format(mask.clear(text))} gives for the edited text.
+ * <br/>If deleted range contains only mask literals, the letter or digit before it is deleted, so literals can't block removing.
+ * <br/>Ignored input prefixes are removed only from chars inserted at the value start, so editing the middle of value never drops its first chars.
+ * <br/>Text which is not formatted by non-strict mask is always cleared as a whole.
+ * <br/>Not thread safe, use separate instance for every text field.
+ *
+ * @author Grishko Nikita
+ */
+public final class IncrementalFormatter {
+
+    private CompiledMask mMask;
+
+    private char[] mRaw;
+    private CharBuffer mRawView;
+    private int mRawLength;
+    private char[] mEdited;
+    private CharBuffer mEditedView;
+
+    /**
+     * True if mask is not applied, and formatted text is equal to raw value
+     */
+    private boolean mPassThrough;
+    private int mPrefixLength;
+    private final StringBuilder mFormatted;
+
+    private int mSelection;
+
+    public IncrementalFormatter(@NonNull CompiledMask mask) {
+        mMask = mask;
+        int capacity = Math.max(mask.getSlotCount(), 16);
+        mRaw = new char[capacity];
+        mRawView = CharBuffer.wrap(mRaw);
+        mEdited = new char[capacity];
+        mEditedView = CharBuffer.wrap(mEdited);
+        mFormatted = new StringBuilder(capacity * 2);
+        mPassThrough = mask.maskLength() == 0;
+    }
+
+    /**
+     * Replaces raw value with the value cleared from the given text
+     */
+    public void reset(@Nullable CharSequence text) {
+        int length = text == null ? 0 : text.length();
+        ensureEditedCapacity(length);
+        mEditedView.clear();
+        mEditedView.limit(mMask.clearTo(text, mEdited, 0));
+        load(mEditedView, true);
+        mSelection = mFormatted.length();
+    }
+
+    /**
+     * Switches to another mask and replaces raw value with the value cleared from the given text by that mask.
+     * <br/>Buffers are reused, so switching between masks, like masks selected by {@link MaskSelector}, allocates nothing
+     */
+    public void reset(@NonNull CompiledMask mask, @Nullable CharSequence text) {
+        mMask = mask;
+        ensureRawCapacity(mask.getSlotCount());
+        reset(text);
+    }
+
+    /**
+     * Applies edit to raw value and rebuilds formatted text.
+     * <br/>If the edited text is not based on the last formatted text, or the edit touches mask prefix,
+     * raw value is cleared from the whole text, like {@link #reset(CharSequence)} does
+     *
+     * @param text   text after edit
+     * @param start  position of the edit
+     * @param before count of replaced chars of the previous text
+     * @param count  count of new chars in the text
+     */
+    public void edit(@NonNull CharSequence text, int start, int before, int count) {
+        if (mPassThrough || text.length() - count + before != mFormatted.length() || start < mPrefixLength
+                || start + count > text.length()) {
+            reset(text);
+            return;
+        }
+
+        int rawStart = rawIndex(start);
+        int rawEnd = rawIndex(start + before);
+        if (before > 0 && count == 0 && rawStart == rawEnd && rawStart > 0) {
+            rawStart--;
+        }
+
+        int inserted = 0;
+        for (int i = start; i < start + count; i++) {
+            if (mMask.accepts(text.charAt(i)))
+                inserted++;
+        }
+        int editedLength = rawStart + inserted + mRawLength - rawEnd;
+        if (!mMask.isMaskStrict() && editedLength > mMask.getSlotCount()) {
+            reset(text);
+            return;
+        }
+        ensureEditedCapacity(editedLength);
+
+        System.arraycopy(mRaw, 0, mEdited, 0, rawStart);
+        int index = rawStart;
+        for (int i = start; i < start + count; i++) {
+            char symbol = text.charAt(i);
+            if (mMask.accepts(symbol))
+                mEdited[index++] = symbol;
+        }
+        System.arraycopy(mRaw, rawEnd, mEdited, index, mRawLength - rawEnd);
+
+        mEditedView.clear();
+        mEditedView.limit(editedLength);
+        int removed = load(mEditedView, rawStart == 0 && inserted > 0);
+        mSelection = formattedIndex(Math.max(0, Math.min(rawStart + inserted - removed, mRawLength)));
+    }
+
+    /**
+     * Returns formatted text for current raw value. Buffer is reused by the next edit
+     */
+    @NonNull
+    public CharSequence getFormatted() {
+        return mFormatted;
+    }
+
+    /**
+     * Returns position of cursor in formatted text after the last edit
+     */
+    public int getSelection() {
+        return mSelection;
+    }
+
+    public int getRawLength() {
+        return mRawLength;
+    }
+
+    /**
+     * Returns raw value, i.e. chars placed in mask slots. Allocates new string
+     */
+    @NonNull
+    public String getRaw() {
+        return new String(mRaw, 0, mRawLength);
+    }
+
+    /**
+     * Loads source to raw value the same way {@link CompiledMask#format(String)} reads it, and rebuilds formatted text
+     *
+     * @param ignorePrefixes if true, ignored input prefixes are removed from the source start
+     * @return count of ignored input prefix chars
+     */
+    private int load(@NonNull CharSequence source, boolean ignorePrefixes) {
+        int length = source.length();
+        mPassThrough = mMask.maskLength() == 0 || (!mMask.isMaskStrict() && length > mMask.getSlotCount());
+
+        int from = 0;
+        mRawLength = 0;
+        if (mPassThrough) {
+            ensureRawCapacity(length);
+            for (int i = 0; i < length; i++) {
+                mRaw[mRawLength++] = source.charAt(i);
+            }
+        } else {
+            from = ignorePrefixes && length > 0 ? mMask.ignoredPrefixLength(source) : 0;
+            for (int i = from; i < length && mRawLength < mMask.getSlotCount(); i++) {
+                char symbol = source.charAt(i);
+                if (mMask.getSlotClass(mRawLength).accepts(symbol))
+                    mRaw[mRawLength++] = symbol;
+            }
+        }
+        render(length == 0);
+        return from;
+    }
+
+    private void render(boolean isSourceEmpty) {
+        mFormatted.setLength(0);
+        mPrefixLength = 0;
+        if (mPassThrough) {
+            mFormatted.append(mRaw, 0, mRawLength);
+            return;
+        }
+        String prefix = mMask.getMaskPrefix();
+        if (isSourceEmpty) {
+            if (mMask.isPrefixNecessarily() && prefix != null) {
+                mFormatted.append(prefix);
+                mPrefixLength = prefix.length();
+            }
+            return;
+        }
+
+        mRawView.clear();
+        mRawView.limit(mRawLength);
+        int resultLength = mMask.formattedLength(mRawLength);
+        if (mMask.prependsPrefix() && !mMask.startsWithPrefix(mRawView, 0, resultLength)) {
+            mFormatted.append(prefix);
+            mPrefixLength = prefix.length();
+        }
+        for (int i = 0, slot = 0; i < resultLength; i++) {
+            mFormatted.append(mMask.isSlot(i) ? mRaw[slot++] : mMask.maskCharAt(i));
+        }
+    }
+
+    /**
+     * Returns index in raw value for position in formatted text
+     */
+    private int rawIndex(int position) {
+        if (mPassThrough)
+            return Math.min(position, mRawLength);
+        int maskPosition = Math.min(Math.max(position - mPrefixLength, 0), mMask.maskLength());
+        return Math.min(mMask.slotsBefore(maskPosition), mRawLength);
+    }
+
+    /**
+     * Returns position in formatted text right after raw char with given index
+     */
+    private int formattedIndex(int rawIndex) {
+        if (mPassThrough)
+            return rawIndex;
+        if (rawIndex == 0)
+            return mRawLength == 0 ? mFormatted.length() : mPrefixLength + mMask.slotPosition(0);
+        return Math.min(mPrefixLength + mMask.slotPosition(rawIndex - 1) + 1, mFormatted.length());
+    }
+
+    private void ensureRawCapacity(int capacity) {
+        if (capacity > mRaw.length) {
+            char[] raw = new char[Math.max(capacity, mRaw.length * 2)];
+            System.arraycopy(mRaw, 0, raw, 0, mRawLength);
+            mRaw = raw;
+            mRawView = CharBuffer.wrap(mRaw);
+        }
+    }
+
+    private void ensureEditedCapacity(int capacity) {
+        if (capacity > mEdited.length) {
+            mEdited = new char[Math.max(capacity, mEdited.length * 2)];
+            mEditedView = CharBuffer.wrap(mEdited);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.grishko188.library;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks constant mask, for which formatter class is generated at compile time by {@code maskformatter-processor}.
+ * <br/>Generated class implements {@link TextFormatter}, formats and clears exactly like {@link CompiledMask} with the same configuration,
+ * but mask is analyzed by the compiler, and formatting code is unrolled for every slot.
+ * <pre>
+ * {@code
+ * public final class Masks {
+ *     @Mask(value = "PhoneMask", prefix = "+7 ", ignoreInputPrefixes = {"+7", "8"})
+ *     public static final String PHONE = "(###) ###-##-##";
+ * }
+ * ...
+ * mTextInput.addTextChangedListener(new MaskTextWatcher(PhoneMask.INSTANCE));
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Mask {
+
+    /**
+     * Simple name of generated class, which is placed to the package of annotated constant
+     */
+    String value();
+
+    /**
+     * @see MaskFormatter#symbol(char)
+     */
+    char symbol() default MaskFormatter.EMPTY;
+
+    /**
+     * Mask prefix, empty for none
+     *
+     * @see MaskFormatter#maskPrefix(String)
+     */
+    String prefix() default "";
+
+    /**
+     * @see MaskFormatter#useMaskPrefixNecessarily(boolean)
+     */
+    boolean prefixNecessarily() default false;
+
+    /**
+     * @see MaskFormatter#ignoreInputPrefixes(String...)
+     */
+    String[] ignoreInputPrefixes() default {};
+
+    /**
+     * @see MaskFormatter#strictMask(boolean)
+     */
+    boolean strict() default true;
+
+    /**
+     * @see MaskFormatter#useStandardSlots()
+     */
+    boolean standardSlots() default false;
+}
@@ -0,0 +1,142 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Formats or clears large arrays and lists with {@link CompiledMask} in parallel.
+ * <br/>Input is split into contiguous chunks, every chunk is processed by one task and writes to its own range of the result array,
+ * so results keep input order. Chunk bounds are aligned to {@link #CHUNK_ALIGNMENT} elements,
+ * so neighbour tasks do not write to the same cache lines of the result array.
+ * The calling thread processes the first chunk itself and waits for the rest.
+ *
+ * @author Grishko Nikita
+ */
+final class MaskBatch {
+
+    /**
+     * Minimal count of elements processed by one task
+     */
+    static final int MIN_CHUNK_SIZE = 1024;
+    static final int CHUNK_ALIGNMENT = 64;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private MaskBatch() {
+    }
+
+    /**
+     * Formats or clears sources starting from index 0 and writes results with the same indexes
+     *
+     * @param sources  array of {@link String}, array of {@link CharSequence} or random access list of {@link CharSequence}
+     * @param executor executor to run tasks, or null to use shared pool
+     */
+    static void process(@NonNull final CompiledMask mask, @NonNull final Object sources, @NonNull final String[] results,
+                        final boolean clear, @Nullable Executor executor) {
+        int size = results.length;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunksCount = Math.min(parallelism * CHUNKS_PER_THREAD, size / MIN_CHUNK_SIZE);
+        if (chunksCount <= 1) {
+            processRange(mask, sources, results, clear, 0, size);
+            return;
+        }
+
+        int chunkSize = (size + chunksCount - 1) / chunksCount;
+        chunkSize = (chunkSize + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT * CHUNK_ALIGNMENT;
+        chunksCount = (size + chunkSize - 1) / chunkSize;
+
+        Executor chunkExecutor = executor == null ? SharedPool.EXECUTOR : executor;
+        final CountDownLatch latch = new CountDownLatch(chunksCount - 1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int chunk = 1; chunk < chunksCount; chunk++) {
+            final int from = chunk * chunkSize;
+            final int to = Math.min(from + chunkSize, size);
+            try {
+                chunkExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            processRange(mask, sources, results, clear, from, to);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                latch.countDown();
+            }
+        }
+
+        try {
+            processRange(mask, sources, results, clear, 0, Math.min(chunkSize, size));
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch formatting", e);
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException)
+            throw (RuntimeException) error;
+        if (error instanceof Error)
+            throw (Error) error;
+        if (error != null)
+            throw new IllegalStateException(error);
+    }
+
+    private static void processRange(CompiledMask mask, Object sources, String[] results, boolean clear, int from, int to) {
+        if (sources instanceof String[]) {
+            String[] array = (String[]) sources;
+            for (int i = from; i < to; i++) {
+                results[i] = clear ? mask.clear(array[i]) : mask.format(array[i]);
+            }
+        } else if (sources instanceof CharSequence[]) {
+            CharSequence[] array = (CharSequence[]) sources;
+            for (int i = from; i < to; i++) {
+                String value = array[i] == null ? null : array[i].toString();
+                results[i] = clear ? mask.clear(value) : mask.format(value);
+            }
+        } else {
+            List<?> list = (List<?>) sources;
+            for (int i = from; i < to; i++) {
+                Object source = list.get(i);
+                String value = source == null ? null : source.toString();
+                results[i] = clear ? mask.clear(value) : mask.format(value);
+            }
+        }
+    }
+
+    /**
+     * Lazily created pool of daemon threads, shared by all batches without own executor
+     */
+    private static final class SharedPool {
+
+        static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCounter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        Thread thread = new Thread(runnable, "MaskFormatter-batch-" + mCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
@@ -0,0 +1,202 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read only set of compiled masks stored in compact binary form, written by {@link MaskBundleWriter}.
+ * <br/>Loading the bundle only checks its header, every mask is decoded from buffer on the first request and then kept,
+ * so application with hundreds of masks pays only for the masks it uses. Decoded masks are not analyzed again:
+ * slot tables, clear elements and ignored prefix trie are read as they were compiled.
+ * <br/>Buffer can be heap, direct or memory mapped, so bundle file can be mapped without copying:
+ * <pre>
+ * {@code
+ * FileChannel channel = new FileInputStream(file).getChannel();
+ * MaskBundle bundle = MaskBundle.load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+ * CompiledMask phone = bundle.get("phone.ru");
+ * }
+ * </pre>
+ * Binary format, all numbers are big endian:
+ * <pre>
+ * header:  int magic 'MSKB', short version, short reserved, int count
+ * index:   count * (int key offset, int entry offset), sorted by key
+ * key:     int length, chars
+ * entry:   byte flags, char replacement char, mask chars, prefix chars,
+ *          byte classes count, classes, byte class index of every mask position (-1 for literal),
+ *          int slots count, int slot positions, int elements count, elements (char, int slots, byte class index),
+ *          boolean has trie, trie (int nodes count, int edges count, nodes (int first edge, int value), edges (char, int target))
+ * class:   long ASCII low bits, long ASCII high bits, byte unicode classes, int count, sorted chars
+ * chars:   int length or -1 for null, chars
+ * </pre>
+ * Bundle is safe to share between threads.
+ *
+ * @author Grishko Nikita
+ * @see MaskBundleWriter
+ */
+public final class MaskBundle {
+
+    static final int MAGIC = 'M' << 24 | 'S' << 16 | 'K' << 8 | 'B';
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int INDEX_ENTRY_SIZE = 8;
+
+    private final ByteBuffer mBuffer;
+    private final int mSize;
+    private final AtomicReferenceArray<CompiledMask> mMasks;
+    private final FormatterMetrics mMetrics;
+
+    private MaskBundle(ByteBuffer buffer, int size, FormatterMetrics metrics) {
+        mBuffer = buffer;
+        mSize = size;
+        mMasks = new AtomicReferenceArray<>(size);
+        mMetrics = metrics;
+    }
+
+    /**
+     * Loads bundle from remaining bytes of buffer. Position of the buffer is not changed, content must not be changed while bundle is used
+     *
+     * @throws IllegalArgumentException if buffer doesn't contain bundle of supported version
+     */
+    @NonNull
+    public static MaskBundle load(@NonNull ByteBuffer buffer) {
+        return load(buffer, null);
+    }
+
+    /**
+     * Loads bundle, which masks report formatting events to given metrics
+     *
+     * @see #load(ByteBuffer)
+     */
+    @NonNull
+    public static MaskBundle load(@NonNull ByteBuffer buffer, @Nullable FormatterMetrics metrics) {
+        ByteBuffer bundle = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (bundle.limit() < HEADER_SIZE || bundle.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Buffer doesn't contain mask bundle");
+        short version = bundle.getShort(4);
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported mask bundle version: " + version);
+        int size = bundle.getInt(8);
+        if (size < 0 || size > (bundle.limit() - HEADER_SIZE) / INDEX_ENTRY_SIZE)
+            throw new IllegalArgumentException("Corrupted mask bundle index, count: " + size);
+        return new MaskBundle(bundle, size, metrics);
+    }
+
+    /**
+     * Returns count of masks in bundle
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns key of mask at given index, keys are sorted
+     */
+    @NonNull
+    public String getKey(int index) {
+        int offset = keyOffset(index);
+        int length = mBuffer.getInt(offset);
+        if (length < 0 || length > (mBuffer.limit() - offset - 4) / 2)
+            throw new IllegalArgumentException("Corrupted mask bundle key length: " + length);
+        char[] key = new char[length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = mBuffer.getChar(offset + 4 + i * 2);
+        }
+        return new String(key);
+    }
+
+    /**
+     * Returns index of mask with given key, or -1 if there is no such mask. Keys are compared in buffer, without decoding
+     */
+    public int indexOf(@NonNull CharSequence key) {
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compareKey(middle, key);
+            if (compared < 0)
+                low = middle + 1;
+            else if (compared > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns mask with given key, or null if there is no such mask
+     */
+    @Nullable
+    public CompiledMask get(@NonNull CharSequence key) {
+        int index = indexOf(key);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Returns mask at given index, decoding it on the first request
+     *
+     * @throws IllegalArgumentException if entry of the mask is corrupted
+     */
+    @NonNull
+    public CompiledMask get(int index) {
+        CompiledMask mask = mMasks.get(checkIndex(index));
+        if (mask != null)
+            return mask;
+
+        ByteBuffer entry = mBuffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            entry.position(mBuffer.getInt(HEADER_SIZE + index * INDEX_ENTRY_SIZE + 4));
+            mask = CompiledMask.read(entry, mMetrics);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Corrupted mask bundle entry: " + getKey(index), e);
+        }
+        if (!mMasks.compareAndSet(index, null, mask))
+            mask = mMasks.get(index);
+        return mask;
+    }
+
+    boolean isDecoded(int index) {
+        return mMasks.get(checkIndex(index)) != null;
+    }
+
+    /**
+     * Compares key at given index with the other key, like {@link String#compareTo(String)}
+     */
+    private int compareKey(int index, @NonNull CharSequence other) {
+        int offset = keyOffset(index);
+        int length = mBuffer.getInt(offset);
+        int otherLength = other.length();
+        for (int i = 0, count = Math.min(length, otherLength); i < count; i++) {
+            char symbol = mBuffer.getChar(offset + 4 + i * 2);
+            char otherSymbol = other.charAt(i);
+            if (symbol != otherSymbol)
+                return symbol - otherSymbol;
+        }
+        return length - otherLength;
+    }
+
+    /**
+     * Reads count of items of given size, which must fit into the remaining bytes of buffer, so corrupted counts don't allocate huge arrays
+     */
+    static int readCount(@NonNull ByteBuffer in, int itemSize) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / itemSize)
+            throw new IllegalArgumentException("Corrupted count: " + count + ", remaining bytes: " + in.remaining());
+        return count;
+    }
+
+    private int keyOffset(int index) {
+        return mBuffer.getInt(HEADER_SIZE + checkIndex(index) * INDEX_ENTRY_SIZE);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= mSize)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        return index;
+    }
+}
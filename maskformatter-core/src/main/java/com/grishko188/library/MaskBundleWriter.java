@@ -0,0 +1,112 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes compiled masks into binary bundle, which is loaded by {@link MaskBundle} without compiling the masks again.
+ * <br/>Bundle is usually written at build time and shipped as asset or raw resource:
+ * <pre>
+ * {@code
+ * byte[] bundle = MaskBundleWriter.get()
+ *          .add("phone.ru", MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7", "8"))
+ *          .add("card", MaskFormatter.get().mask("#### #### #### ####"))
+ *          .toByteArray();
+ * }
+ * </pre>
+ * Metrics of masks are not written.
+ *
+ * @author Grishko Nikita
+ * @see MaskBundle
+ */
+public final class MaskBundleWriter {
+
+    private final Map<String, CompiledMask> mMasks = new TreeMap<>();
+
+    public static MaskBundleWriter get() {
+        return new MaskBundleWriter();
+    }
+
+    /**
+     * Adds mask compiled from formatter. Mask added with the same key before is replaced
+     */
+    public MaskBundleWriter add(@NonNull String key, @NonNull MaskFormatter formatter) {
+        return add(key, formatter.build());
+    }
+
+    /**
+     * Adds mask. Mask added with the same key before is replaced
+     */
+    public MaskBundleWriter add(@NonNull String key, @NonNull CompiledMask mask) {
+        mMasks.put(key, mask);
+        return this;
+    }
+
+    public int size() {
+        return mMasks.size();
+    }
+
+    /**
+     * Writes bundle to stream. Stream is not closed
+     */
+    public void write(@NonNull OutputStream out) throws IOException {
+        List<byte[]> entries = new ArrayList<>(mMasks.size());
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(entry);
+        for (CompiledMask mask : mMasks.values()) {
+            entry.reset();
+            mask.writeTo(entryOut);
+            entryOut.flush();
+            entries.add(entry.toByteArray());
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MaskBundle.MAGIC);
+        data.writeShort(MaskBundle.VERSION);
+        data.writeShort(0);
+        data.writeInt(mMasks.size());
+
+        int keyOffset = MaskBundle.HEADER_SIZE + mMasks.size() * MaskBundle.INDEX_ENTRY_SIZE;
+        int entryOffset = keyOffset;
+        for (String key : mMasks.keySet()) {
+            entryOffset += 4 + key.length() * 2;
+        }
+        int index = 0;
+        for (String key : mMasks.keySet()) {
+            data.writeInt(keyOffset);
+            data.writeInt(entryOffset);
+            keyOffset += 4 + key.length() * 2;
+            entryOffset += entries.get(index++).length;
+        }
+        for (String key : mMasks.keySet()) {
+            data.writeInt(key.length());
+            data.writeChars(key);
+        }
+        for (byte[] bytes : entries) {
+            data.write(bytes);
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns bundle bytes
+     */
+    @NonNull
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,166 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe, size bounded cache of {@link CompiledMask}, keyed by the whole {@link MaskFormatter} configuration
+ * (mask, symbol, mask prefix, ignored input prefixes, strict mode).
+ * <br/>Cache is split into independently locked segments, every segment evicts its least recently used masks.
+ * <pre>
+ * {@code
+ * CompiledMask mask = MaskFormatters.cache().get(MaskFormatter.get().mask("+7 (###) ###-##-##"));
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ * @see MaskFormatters
+ */
+public final class MaskCache {
+
+    private static final int MAX_SEGMENTS_COUNT = 16;
+
+    private final Segment[] mSegments;
+    private final int mMaximumSize;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    MaskCache(int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+        int segmentsCount = 1;
+        while (segmentsCount < MAX_SEGMENTS_COUNT && segmentsCount * 2 * 4 <= maximumSize) {
+            segmentsCount *= 2;
+        }
+        mSegments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++) {
+            int capacity = maximumSize / segmentsCount + (i < maximumSize % segmentsCount ? 1 : 0);
+            mSegments[i] = new Segment(capacity);
+        }
+        mMaximumSize = maximumSize;
+    }
+
+    /**
+     * Returns compiled mask for current configuration of the formatter, compiling it on the first request
+     */
+    @NonNull
+    public CompiledMask get(@NonNull MaskFormatter formatter) {
+        return get(formatter.key());
+    }
+
+    /**
+     * Returns compiled mask for the given mask with auto detected replacement char
+     */
+    @NonNull
+    public CompiledMask get(String mask) {
+        return get(new MaskKey(mask, MaskFormatter.EMPTY, null, false, null, true, null, null, null));
+    }
+
+    /**
+     * Returns compiled mask for the given mask and replacement char
+     */
+    @NonNull
+    public CompiledMask get(String mask, char symbol) {
+        return get(new MaskKey(mask, symbol, null, false, null, true, null, null, null));
+    }
+
+    private CompiledMask get(MaskKey key) {
+        int hash = key.hashCode();
+        Segment segment = mSegments[(hash ^ (hash >>> 16)) & (mSegments.length - 1)];
+        synchronized (segment) {
+            CompiledMask compiled = segment.get(key);
+            if (compiled != null) {
+                mHitCount.incrementAndGet();
+                return compiled;
+            }
+            mMissCount.incrementAndGet();
+            compiled = key.compile();
+            segment.put(key, compiled);
+            return compiled;
+        }
+    }
+
+    /**
+     * Removes all masks from cache. Statistics is not reset
+     */
+    public void clear() {
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns count of cached masks
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return mMaximumSize;
+    }
+
+    /**
+     * Returns count of requests returned already compiled mask
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Returns count of requests which compiled new mask
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Returns count of masks removed from cache because of size limit
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Returns part of requests returned already compiled mask, or 1 if there were no requests
+     */
+    public double getHitRate() {
+        long hitCount = mHitCount.get();
+        long requestCount = hitCount + mMissCount.get();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @SuppressWarnings("serial")
+    private class Segment extends LinkedHashMap<MaskKey, CompiledMask> {
+
+        private final int mCapacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            mCapacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MaskKey, CompiledMask> eldest) {
+            if (size() > mCapacity) {
+                mEvictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
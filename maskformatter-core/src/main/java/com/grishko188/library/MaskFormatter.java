@@ -0,0 +1,517 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Formatter class that provides the ability to format the text for any arbitrarily given mask,
+ * and to clean the filter.
+ * <br/><br/>You can use only letters and numbers in the source string
+ * <br/>Add mask as string, for example № ###-###-### (##), where '#' replacement char
+ * <br/>If replacement char is not initialized manually, the formatter will find in your mask most frequently used symbol, and will consider it as a symbol to replace
+ * *
+ *
+ * @author Grishko Nikita
+ * on 12.05.2016.
+ */
+public class MaskFormatter implements TextFormatter {
+
+    public static final char DEFAULT_MASK_CHAR = '#';
+
+    public static final char EMPTY = '\u0000';
+
+    private String mMask;
+    private char mReplacementChar;
+    private String[] mIgnorePrefix = null;
+    private String mMaskPrefix;
+    private boolean mPrefixNecessarily = false;
+    private boolean mIsMaskStrict = true;
+    private char[] mSlotChars;
+    private SlotClass[] mSlotClasses;
+    private FormatterMetrics mMetrics;
+    /**
+     * Compiled mask and results cache are created lazily, once for concurrent first calls
+     */
+    private volatile CompiledMask mCompiled;
+    private int mResultCacheSize;
+    private volatile MaskResultCache mResultCache;
+
+    private static final MaskFormatter instance = new MaskFormatter();
+
+    private MaskFormatter() {
+    }
+
+    /**
+     * Create new instance of {@link MaskFormatter}
+     */
+    public static MaskFormatter get() {
+        return new MaskFormatter();
+    }
+
+    /**
+     * Returns single instance of {@link MaskFormatter}
+     * Use only if you sure that formatting params would not change.
+     * <br/>To share formatters with different params use {@link MaskFormatters#cache()}
+     */
+    public static MaskFormatter single() {
+        return instance;
+    }
+
+    /**
+     * Set the given string as format mask
+     */
+    public MaskFormatter mask(String mask) {
+        this.mMask = mask;
+        this.mCompiled = null;
+        return this;
+    }
+
+
+    /**
+     * Set the given string as mask prefix, to build complicated mask. Output will be look like this scheme
+     * <br/> (mask_prefix)+(result of formatting)
+     */
+    public MaskFormatter maskPrefix(String prefix) {
+        this.mMaskPrefix = prefix;
+        this.mCompiled = null;
+        return this;
+    }
+
+    /**
+     * Switch if mask prefix should be always in input.
+     * This parameter makes the mask prefix not removed from the input field.
+     * Generally designed to use with {@code MaskTextWatcher}
+     * By default this parameter is false.
+     */
+    public MaskFormatter useMaskPrefixNecessarily(boolean value) {
+        this.mPrefixNecessarily = value;
+        this.mCompiled = null;
+        return this;
+    }
+
+    /**
+     * Change mask strict mode. If strict set to false and input string length is bigger then available replacement chars in mask, formatting will not be applied
+     */
+    public MaskFormatter strictMask(boolean isStrict) {
+        this.mIsMaskStrict = isStrict;
+        this.mCompiled = null;
+        return this;
+    }
+
+    public String getMask() {
+        return this.mMask;
+    }
+
+    @Nullable
+    public String getMaskPrefix() {
+        return this.mMaskPrefix;
+    }
+
+    public boolean isPrefixNecessarily() {
+        return this.mPrefixNecessarily;
+    }
+
+    public boolean isMaskStrict() {
+        return this.mIsMaskStrict;
+    }
+
+    /**
+     * Returns count of replacement chars in mask, i.e. maximum count of source chars that can be formatted
+     */
+    public int getSlotCount() {
+        return compiled().getSlotCount();
+    }
+
+    /**
+     * Returns replacement char. If it is not initialized manually, returns the char detected in mask
+     */
+    public char getReplacementChar() {
+        if (mReplacementChar == EMPTY && mMask != null && mMask.length() > 0)
+            return compiled().getReplacementChar();
+        return mReplacementChar;
+    }
+
+    /**
+     * Set an array of possible prefixes, which should be ignored while formatting.
+     * Generally designed for phone formatter, to ignore country code or etc.
+     * <br/>If several prefixes match the input, the longest one is ignored. Prefixes are compiled into a trie,
+     * so large sets of prefixes do not slow down formatting.
+     * <pre>
+     * {@code
+     * MaskFormatter formatter = MaskFormatter.get().mask("+7 (###) ###-##-##")
+     *                                          .ignoreInputPrefixes("+7", "7","8");
+     *     assertEquals("+7 (930) 792-00-00", formatter.format(79307920000));
+     * }
+     * </pre>
+     */
+    public MaskFormatter ignoreInputPrefixes(String... prefix) {
+        this.mIgnorePrefix = prefix;
+        this.mCompiled = null;
+        return this;
+    }
+
+    /**
+     * Set the given char as replacement char.
+     * <br/>If replacement char is not initialized , the formatter will find in your mask most frequently used symbol, and will consider it as a symbol to replace
+     */
+    public MaskFormatter symbol(char replacementChar) {
+        checkNotSurrogate(replacementChar);
+        this.mReplacementChar = replacementChar;
+        this.mCompiled = null;
+        return this;
+    }
+
+    /**
+     * Declare the given mask char as a slot, which accepts only chars of the given class.
+     * Chars of source, which are not accepted by the next slot, are skipped while formatting.
+     * <br/>Replacement char slots still accept any letter or digit. If slots are declared and replacement char is not set,
+     * {@link #DEFAULT_MASK_CHAR} is used as replacement char instead of the most popular mask char.
+     * <pre>
+     * {@code
+     * MaskFormatter formatter = MaskFormatter.get().mask("AA 000000")
+     *                                          .slot('A', SlotClass.LETTER)
+     *                                          .slot('0', SlotClass.DIGIT);
+     *     assertEquals("AB 123456", formatter.format("AB-123456"));
+     * }
+     * </pre>
+     */
+    public MaskFormatter slot(char maskChar, @NonNull SlotClass slotClass) {
+        checkNotSurrogate(maskChar);
+        int count = mSlotChars == null ? 0 : mSlotChars.length;
+        int index = 0;
+        while (index < count && mSlotChars[index] != maskChar) {
+            index++;
+        }
+        char[] slotChars = new char[index < count ? count : count + 1];
+        SlotClass[] slotClasses = new SlotClass[slotChars.length];
+        if (count > 0) {
+            System.arraycopy(mSlotChars, 0, slotChars, 0, count);
+            System.arraycopy(mSlotClasses, 0, slotClasses, 0, count);
+        }
+        slotChars[index] = maskChar;
+        slotClasses[index] = slotClass;
+        this.mSlotChars = slotChars;
+        this.mSlotClasses = slotClasses;
+        this.mCompiled = null;
+        return this;
+    }
+
+    /**
+     * Declare standard slot chars: '0' for digit, 'A' for letter, 'H' for hexadecimal digit and '*' for letter or digit
+     *
+     * @see #slot(char, SlotClass)
+     */
+    public MaskFormatter useStandardSlots() {
+        return slot('0', SlotClass.DIGIT)
+                .slot('A', SlotClass.LETTER)
+                .slot('H', SlotClass.HEX_DIGIT)
+                .slot('*', SlotClass.LETTER_OR_DIGIT);
+    }
+
+    /**
+     * Set listener of formatting events, for example {@link MaskMetrics}. Null disables measuring.
+     * By default events are not measured and cost nothing.
+     */
+    public MaskFormatter metrics(@Nullable FormatterMetrics metrics) {
+        this.mMetrics = metrics;
+        this.mCompiled = null;
+        return this;
+    }
+
+    /**
+     * Switch caching of {@link #format(String)} and {@link #clear(String)} results, for values formatted again and again.
+     * Cache keeps not more then given count of results and is dropped on any configuration change.
+     * 0 disables caching. By default results are not cached.
+     *
+     * @see MaskResultCache
+     */
+    public MaskFormatter cacheResults(int maximumSize) {
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maximumSize);
+        this.mResultCacheSize = maximumSize;
+        this.mResultCache = null;
+        return this;
+    }
+
+    /**
+     * Returns cache of results for current configuration, to read its statistics, or null if caching is disabled
+     */
+    @Nullable
+    public MaskResultCache getResultCache() {
+        if (mResultCacheSize == 0)
+            return null;
+        CompiledMask compiled = compiled();
+        MaskResultCache cache = mResultCache;
+        if (cache == null || cache.getMask() != compiled) {
+            synchronized (this) {
+                cache = mResultCache;
+                if (cache == null || cache.getMask() != compiled) {
+                    cache = new MaskResultCache(compiled, mResultCacheSize);
+                    mResultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns true if the char is accepted at least by one slot of mask
+     */
+    public boolean accepts(char symbol) {
+        return compiled().accepts(symbol);
+    }
+
+    /**
+     * Returns position in formatted text right after given count of raw chars, with mask prefix accounted for.
+     *
+     * @see CompiledMask#toFormattedOffset(int)
+     */
+    public int toFormattedOffset(int rawOffset) {
+        return compiled().toFormattedOffset(rawOffset);
+    }
+
+    /**
+     * Returns count of raw chars placed before given position of formatted text, with mask prefix accounted for.
+     *
+     * @see CompiledMask#toRawOffset(int)
+     */
+    public int toRawOffset(int formattedOffset) {
+        return compiled().toRawOffset(formattedOffset);
+    }
+
+    /**
+     * Returns count of replacement chars filled in text formatted from cleared source, without building strings.
+     *
+     * @see CompiledMask#filledSlots(CharSequence)
+     */
+    public int filledSlots(@Nullable CharSequence source) {
+        return compiled().filledSlots(source);
+    }
+
+    /**
+     * Returns true if all replacement chars are filled in text formatted from cleared source, without building strings.
+     * <pre>
+     * {@code
+     * mSubmitButton.setEnabled(formatter.isComplete(mPhoneInput.getText()));
+     * }
+     * </pre>
+     *
+     * @see CompiledMask#isComplete(CharSequence)
+     */
+    public boolean isComplete(@Nullable CharSequence source) {
+        return compiled().isComplete(source);
+    }
+
+    /**
+     * Returns -1 if text is formatted with the mask, otherwise index of the first char which doesn't match the mask.
+     *
+     * @see CompiledMask#validate(CharSequence)
+     */
+    public int validate(@Nullable CharSequence text) {
+        return compiled().validate(text);
+    }
+
+    /**
+     * Returns clear string without formatting.
+     * <br/>Source is matched against the mask literals and replacement sequences in a single pass, without RegExp.
+     * If source contains chars which are neither letters and digits nor mask literals, source is returned as is.
+     */
+    public String clear(String source) {
+        MaskResultCache cache = getResultCache();
+        if (cache != null)
+            return cache.clear(source);
+        return compiled().clear(source);
+    }
+
+    /**
+     * Returns clear string without formatting.
+     * <br/>
+     * Known issue:
+     * <ul>
+     * <li>Do not use for user input formatting, only static text
+     * </ul>
+     */
+    public String clearStatic(String source) {
+        return compiled().clearStatic(source);
+    }
+
+    /**
+     * Format source string with given mask.
+     * <br/>All not letters and digits chars will be escaped
+     * * Known issue:
+     * <ul>
+     * <li>Do not use the mask type #### #### #### z ( any characters after replacement sequence in the end of mask) with EditText formatting(you will have troubles with removing), but works fine for static formatting</li>
+     * <br/>
+     * </ul>
+     */
+    public String format(String source) {
+        MaskResultCache cache = getResultCache();
+        if (cache != null)
+            return cache.format(source);
+        return compiled().format(source);
+    }
+
+    /**
+     * Format source with given mask and write the result to destination array starting from offset.
+     * <br/>Result is the same as {@link #format(String)} returns, but no objects are allocated.
+     * Use {@link CompiledMask#formattedLength(CharSequence)} to find out required destination space.
+     *
+     * @return count of written chars
+     * @throws IndexOutOfBoundsException if destination has not enough space after offset
+     */
+    public int formatTo(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        return compiled().formatTo(source, destination, offset);
+    }
+
+    /**
+     * Format source with given mask and append the result to destination.
+     * <br/>Result is the same as {@link #format(String)} returns, but no objects are allocated except destination growth.
+     *
+     * @return count of appended chars
+     */
+    public int formatTo(@Nullable CharSequence source, @NonNull StringBuilder destination) {
+        return compiled().formatTo(source, destination);
+    }
+
+    /**
+     * Format source with given mask and append the result to destination.
+     *
+     * @return count of appended chars
+     * @see #formatTo(CharSequence, StringBuilder)
+     */
+    public int formatTo(@Nullable CharSequence source, @NonNull Appendable destination) throws IOException {
+        return compiled().formatTo(source, destination);
+    }
+
+    /**
+     * Clear source and write the result to destination array starting from offset.
+     * <br/>Result is the same as {@link #clear(String)} returns, but no objects are allocated.
+     *
+     * @return count of written chars
+     * @throws IndexOutOfBoundsException if destination has less space after offset then source length
+     */
+    public int clearTo(@Nullable CharSequence source, @NonNull char[] destination, int offset) {
+        return compiled().clearTo(source, destination, offset);
+    }
+
+    /**
+     * Format all sources with given mask in parallel, using shared pool of daemon threads.
+     *
+     * @return array of results in the same order as sources
+     * @see #formatAll(String[], Executor)
+     */
+    @NonNull
+    public String[] formatAll(@NonNull String[] sources) {
+        return compiled().formatAll(sources, null);
+    }
+
+    /**
+     * Format all sources with given mask in parallel.
+     * <br/>Sources are split into chunks of at least {@value MaskBatch#MIN_CHUNK_SIZE} elements, smaller inputs are formatted in the calling thread.
+     * Current configuration is compiled once, so changes of this formatter during formatting do not affect the results.
+     * <br/>Do not pass executor which runs the calling thread, its tasks may never start while the caller waits.
+     * <br/>For streams use {@link #build()}, compiled mask is immutable: {@code stream.parallel().map(mask::format)}
+     *
+     * @param executor executor to run chunks, or null to use shared pool of daemon threads
+     * @return array of results in the same order as sources
+     */
+    @NonNull
+    public String[] formatAll(@NonNull String[] sources, @Nullable Executor executor) {
+        return compiled().formatAll(sources, executor);
+    }
+
+    /**
+     * @see #formatAll(String[], Executor)
+     */
+    @NonNull
+    public List<String> formatAll(@NonNull List<? extends CharSequence> sources) {
+        return compiled().formatAll(sources, null);
+    }
+
+    /**
+     * @see #formatAll(String[], Executor)
+     */
+    @NonNull
+    public List<String> formatAll(@NonNull List<? extends CharSequence> sources, @Nullable Executor executor) {
+        return compiled().formatAll(sources, executor);
+    }
+
+    /**
+     * Clear all sources in parallel, using shared pool of daemon threads.
+     *
+     * @see #clear(String)
+     * @see #formatAll(String[], Executor)
+     */
+    @NonNull
+    public String[] clearAll(@NonNull String[] sources) {
+        return compiled().clearAll(sources, null);
+    }
+
+    /**
+     * Clear all sources in parallel.
+     *
+     * @see #clear(String)
+     * @see #formatAll(String[], Executor)
+     */
+    @NonNull
+    public String[] clearAll(@NonNull String[] sources, @Nullable Executor executor) {
+        return compiled().clearAll(sources, executor);
+    }
+
+    /**
+     * @see #clearAll(String[], Executor)
+     */
+    @NonNull
+    public List<String> clearAll(@NonNull List<? extends CharSequence> sources) {
+        return compiled().clearAll(sources, null);
+    }
+
+    /**
+     * @see #clearAll(String[], Executor)
+     */
+    @NonNull
+    public List<String> clearAll(@NonNull List<? extends CharSequence> sources, @Nullable Executor executor) {
+        return compiled().clearAll(sources, executor);
+    }
+
+    /**
+     * Freezes current configuration into immutable {@link CompiledMask}.
+     * <br/>Mask is analyzed only once, so use the result for hot paths and for sharing between threads.
+     * Further changes of this formatter do not affect already built masks.
+     */
+    public CompiledMask build() {
+        return new CompiledMask(mMask, mReplacementChar, mMaskPrefix, mPrefixNecessarily, mIgnorePrefix, mIsMaskStrict,
+                mSlotChars, mSlotClasses, mMetrics);
+    }
+
+    private static void checkNotSurrogate(char maskChar) {
+        if (CharClassifier.isSurrogate(maskChar))
+            throw new IllegalArgumentException("Slot char can't be a char of surrogate pair: " + (int) maskChar);
+    }
+
+    /**
+     * Returns compiled mask for current configuration, built on first use after any change
+     */
+    CompiledMask compiled() {
+        CompiledMask compiled = mCompiled;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = mCompiled;
+                if (compiled == null) {
+                    compiled = build();
+                    mCompiled = compiled;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    MaskKey key() {
+        return new MaskKey(mMask, mReplacementChar, mMaskPrefix, mPrefixNecessarily, mIgnorePrefix, mIsMaskStrict,
+                mSlotChars, mSlotClasses, mMetrics);
+    }
+}
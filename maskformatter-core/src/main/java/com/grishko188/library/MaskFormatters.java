@@ -0,0 +1,53 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Factory methods for shared formatting objects.
+ *
+ * @author Grishko Nikita
+ */
+public final class MaskFormatters {
+
+    /**
+     * Maximum count of masks in shared cache
+     */
+    public static final int DEFAULT_CACHE_SIZE = 512;
+
+    private static final MaskCache CACHE = new MaskCache(DEFAULT_CACHE_SIZE);
+
+    private MaskFormatters() {
+    }
+
+    /**
+     * Returns shared cache of compiled masks. Use it instead of {@link MaskFormatter#single()}
+     * when formatting params differ between calls or threads.
+     * <pre>
+     * {@code
+     * CompiledMask mask = MaskFormatters.cache().get(MaskFormatter.get()
+     *                                          .mask("(###) ###-##-##")
+     *                                          .maskPrefix("+7 "));
+     * }
+     * </pre>
+     */
+    @NonNull
+    public static MaskCache cache() {
+        return CACHE;
+    }
+
+    /**
+     * Creates new cache of compiled masks, which keeps not more then given count of masks
+     */
+    @NonNull
+    public static MaskCache newCache(int maximumSize) {
+        return new MaskCache(maximumSize);
+    }
+
+    /**
+     * Creates new cache of formatting and clearing results of the mask, which keeps not more then given count of results
+     */
+    @NonNull
+    public static MaskResultCache newResultCache(@NonNull CompiledMask mask, int maximumSize) {
+        return new MaskResultCache(mask, maximumSize);
+    }
+}
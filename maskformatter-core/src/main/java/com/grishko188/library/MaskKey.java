@@ -0,0 +1,85 @@
+package com.grishko188.library;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Immutable key of {@link MaskFormatter} configuration, used to look up compiled masks in {@link MaskCache}
+ *
+ * @author Grishko Nikita
+ */
+final class MaskKey {
+
+    private final String mMask;
+    private final char mReplacementChar;
+    private final String mMaskPrefix;
+    private final boolean mPrefixNecessarily;
+    private final String[] mIgnorePrefix;
+    private final boolean mIsMaskStrict;
+    private final char[] mSlotChars;
+    private final SlotClass[] mSlotClasses;
+    /**
+     * Compared by identity
+     */
+    private final FormatterMetrics mMetrics;
+    private final int mHashCode;
+
+    MaskKey(@Nullable String mask, char replacementChar, @Nullable String maskPrefix, boolean prefixNecessarily,
+            @Nullable String[] ignorePrefix, boolean isMaskStrict, @Nullable char[] slotChars, @Nullable SlotClass[] slotClasses,
+            @Nullable FormatterMetrics metrics) {
+        mMask = mask;
+        mReplacementChar = replacementChar;
+        mMaskPrefix = maskPrefix;
+        mPrefixNecessarily = prefixNecessarily;
+        mIgnorePrefix = ignorePrefix == null || ignorePrefix.length == 0 ? null : ignorePrefix.clone();
+        mIsMaskStrict = isMaskStrict;
+        mSlotChars = slotChars == null ? null : slotChars.clone();
+        mSlotClasses = slotClasses == null ? null : slotClasses.clone();
+        mMetrics = metrics;
+
+        int hashCode = mask == null ? 0 : mask.hashCode();
+        hashCode = 31 * hashCode + replacementChar;
+        hashCode = 31 * hashCode + (maskPrefix == null ? 0 : maskPrefix.hashCode());
+        hashCode = 31 * hashCode + (prefixNecessarily ? 1 : 0);
+        hashCode = 31 * hashCode + Arrays.hashCode(mIgnorePrefix);
+        hashCode = 31 * hashCode + (isMaskStrict ? 1 : 0);
+        hashCode = 31 * hashCode + Arrays.hashCode(mSlotChars);
+        hashCode = 31 * hashCode + Arrays.hashCode(mSlotClasses);
+        hashCode = 31 * hashCode + System.identityHashCode(metrics);
+        mHashCode = hashCode;
+    }
+
+    CompiledMask compile() {
+        return new CompiledMask(mMask, mReplacementChar, mMaskPrefix, mPrefixNecessarily, mIgnorePrefix, mIsMaskStrict,
+                mSlotChars, mSlotClasses, mMetrics);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof MaskKey))
+            return false;
+        MaskKey key = (MaskKey) o;
+        return mHashCode == key.mHashCode
+                && mReplacementChar == key.mReplacementChar
+                && mPrefixNecessarily == key.mPrefixNecessarily
+                && mIsMaskStrict == key.mIsMaskStrict
+                && equals(mMask, key.mMask)
+                && equals(mMaskPrefix, key.mMaskPrefix)
+                && Arrays.equals(mIgnorePrefix, key.mIgnorePrefix)
+                && Arrays.equals(mSlotChars, key.mSlotChars)
+                && Arrays.equals(mSlotClasses, key.mSlotClasses)
+                && mMetrics == key.mMetrics;
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    private static boolean equals(@Nullable String first, @Nullable String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
@@ -0,0 +1,185 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * {@link FormatterMetrics}, which counts events and collects latency histograms.
+ * <br/>Counters are striped by thread like {@code LongAdder} once concurrent updates contend, so uncontended metrics stay small.
+ * Latencies are collected into power of two buckets, percentiles are estimated by bucket upper bounds.
+ * <pre>
+ * {@code
+ * MaskMetrics metrics = new MaskMetrics();
+ * MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##").metrics(metrics);
+ * ...
+ * Log.d(TAG, metrics.toString());
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ */
+public final class MaskMetrics implements FormatterMetrics {
+
+    private static final int CLEAR_MISMATCHES = 0;
+    private static final int PASS_THROUGHS = 1;
+    private static final int PREFIX_STRIPS = 2;
+    private static final int WATCHER_SELF_CHANGES = 3;
+
+    private final StripedCounter mCounters = new StripedCounter(4);
+    private final Latency mFormatLatency = new Latency();
+    private final Latency mClearLatency = new Latency();
+    private final Latency mClearStaticLatency = new Latency();
+    private final Latency mWatcherLatency = new Latency();
+
+    @Override
+    public void onFormat(long durationNanos) {
+        mFormatLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onClear(long durationNanos) {
+        mClearLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onClearStatic(long durationNanos) {
+        mClearStaticLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onClearMismatch() {
+        mCounters.increment(CLEAR_MISMATCHES);
+    }
+
+    @Override
+    public void onPassThrough() {
+        mCounters.increment(PASS_THROUGHS);
+    }
+
+    @Override
+    public void onPrefixStrip() {
+        mCounters.increment(PREFIX_STRIPS);
+    }
+
+    @Override
+    public void onWatcherEdit(long durationNanos) {
+        mWatcherLatency.record(durationNanos);
+    }
+
+    @Override
+    public void onWatcherSelfChange() {
+        mCounters.increment(WATCHER_SELF_CHANGES);
+    }
+
+    @NonNull
+    public Latency getFormatLatency() {
+        return mFormatLatency;
+    }
+
+    @NonNull
+    public Latency getClearLatency() {
+        return mClearLatency;
+    }
+
+    @NonNull
+    public Latency getClearStaticLatency() {
+        return mClearStaticLatency;
+    }
+
+    @NonNull
+    public Latency getWatcherLatency() {
+        return mWatcherLatency;
+    }
+
+    public long getClearMismatchCount() {
+        return mCounters.sum(CLEAR_MISMATCHES);
+    }
+
+    public long getPassThroughCount() {
+        return mCounters.sum(PASS_THROUGHS);
+    }
+
+    public long getPrefixStripCount() {
+        return mCounters.sum(PREFIX_STRIPS);
+    }
+
+    public long getWatcherSelfChangeCount() {
+        return mCounters.sum(WATCHER_SELF_CHANGES);
+    }
+
+    @Override
+    public String toString() {
+        return "MaskMetrics{format=" + mFormatLatency
+                + ", clear=" + mClearLatency
+                + ", clearStatic=" + mClearStaticLatency
+                + ", watcher=" + mWatcherLatency
+                + ", clearMismatches=" + getClearMismatchCount()
+                + ", passThroughs=" + getPassThroughCount()
+                + ", prefixStrips=" + getPrefixStripCount()
+                + ", watcherSelfChanges=" + getWatcherSelfChangeCount()
+                + '}';
+    }
+
+    /**
+     * Histogram of durations. Bucket {@code i} counts durations from {@code 2^(i-1)} to {@code 2^i - 1} nanoseconds
+     */
+    public static final class Latency {
+
+        public static final int BUCKETS = 64;
+        private static final int COUNT = BUCKETS;
+        private static final int TOTAL = BUCKETS + 1;
+
+        private final StripedCounter mCounters = new StripedCounter(BUCKETS + 2);
+
+        void record(long durationNanos) {
+            long duration = Math.max(durationNanos, 0);
+            mCounters.add(Math.min(64 - Long.numberOfLeadingZeros(duration), BUCKETS - 1), 1);
+            mCounters.add(COUNT, 1);
+            mCounters.add(TOTAL, duration);
+        }
+
+        public long getCount() {
+            return mCounters.sum(COUNT);
+        }
+
+        public long getTotalNanos() {
+            return mCounters.sum(TOTAL);
+        }
+
+        public long getBucketCount(int bucket) {
+            return mCounters.sum(bucket);
+        }
+
+        /**
+         * Returns upper bound of the bucket containing given quantile of durations, or 0 if nothing is recorded
+         *
+         * @param quantile value from 0 to 1, for example 0.99
+         */
+        public long getQuantileNanos(double quantile) {
+            long[] buckets = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = mCounters.sum(i);
+                count += buckets[i];
+            }
+            if (count == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank)
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            long count = getCount();
+            return String.format(Locale.US, "{count=%d, mean=%dns, p50<=%dns, p99<=%dns}", count,
+                    count == 0 ? 0 : getTotalNanos() / count, getQuantileNanos(0.5), getQuantileNanos(0.99));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of formatters selected by numeric ranges of leading digits of the text, like payment card issuer ranges (BIN/IIN).
+ * <br/>Ranges are bounded by digit strings of the same length, {@code "51"..."55"} matches every text starting with 51, 52, 53, 54 or 55.
+ * Ranges can be nested, the narrowest range containing the digits wins. Chars other than letters and digits are skipped,
+ * so {@code "5212 34"} and {@code "521234"} select the same formatter.
+ * <br/>While typed digits don't determine the formatter yet (e.g. {@code "3"} may start both 34 and 36 ranges), or no range matches,
+ * the default formatter is used.
+ * <pre>
+ * {@code
+ * MaskFormatter amex = MaskFormatter.get().mask("#### ###### #####");
+ * MaskRangeRegistry cards = MaskRangeRegistry.get()
+ *          .defaultFormatter(MaskFormatter.get().mask("#### #### #### ####"))
+ *          .register("34", amex)
+ *          .register("37", amex)
+ *          .register("300", "305", MaskFormatter.get().mask("#### ###### ####"));
+ *     assertEquals("3712 345678 90123", cards.format("371234567890123"));
+ * }
+ * </pre>
+ * Ranges are compiled into sorted array of disjoint intervals, so formatter is found with two binary searches and without allocations.
+ * Configure the registry before use, then it can be read from any thread.
+ *
+ * @author Grishko Nikita
+ * @see MaskRegistry
+ */
+public final class MaskRangeRegistry implements MaskSelector {
+
+    /**
+     * Maximum count of digits in range bounds, to keep bounds in long
+     */
+    public static final int MAX_KEY_LENGTH = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_KEY_LENGTH + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final List<String> mFrom = new ArrayList<>();
+    private final List<String> mTo = new ArrayList<>();
+    private final List<MaskFormatter> mFormatters = new ArrayList<>();
+    private MaskFormatter mDefaultFormatter = MaskFormatter.get();
+
+    /**
+     * Index of ranges, lazily compiled after registration: digits are padded to the key length,
+     * interval {@code i} starts at {@code mIntervalStarts[i]} and ends before the next one, its formatter is null if no range covers it
+     */
+    private int mKeyLength;
+    private long[] mIntervalStarts;
+    private MaskFormatter[] mIntervalFormatters;
+    private volatile boolean mIsIndexCompiled;
+
+    public static MaskRangeRegistry get() {
+        return new MaskRangeRegistry();
+    }
+
+    /**
+     * Registers formatter for text starting with given digits
+     */
+    public MaskRangeRegistry register(@NonNull String prefix, @NonNull MaskFormatter formatter) {
+        return register(prefix, prefix, formatter);
+    }
+
+    /**
+     * Registers formatter for text, which leading digits are in range between given bounds inclusive.
+     * Formatter registered for the same range before is replaced
+     */
+    public MaskRangeRegistry register(@NonNull String from, @NonNull String to, @NonNull MaskFormatter formatter) {
+        checkKey(from);
+        checkKey(to);
+        if (from.length() != to.length())
+            throw new IllegalArgumentException("Range bounds must have the same length: " + from + "..." + to);
+        if (from.compareTo(to) > 0)
+            throw new IllegalArgumentException("Range start must not be greater then its end: " + from + "..." + to);
+
+        for (int i = 0; i < mFrom.size(); i++) {
+            if (mFrom.get(i).equals(from) && mTo.get(i).equals(to)) {
+                mFormatters.set(i, formatter);
+                mIsIndexCompiled = false;
+                return this;
+            }
+        }
+        mFrom.add(from);
+        mTo.add(to);
+        mFormatters.add(formatter);
+        mIsIndexCompiled = false;
+        return this;
+    }
+
+    private static void checkKey(@NonNull String key) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH)
+            throw new IllegalArgumentException("Range bound must have from 1 to " + MAX_KEY_LENGTH + " digits: " + key);
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) < '0' || key.charAt(i) > '9')
+                throw new IllegalArgumentException("Range bound must contain only digits: " + key);
+        }
+    }
+
+    /**
+     * Set formatter used for text which doesn't select any range.
+     * By default the text is not formatted.
+     */
+    public MaskRangeRegistry defaultFormatter(@NonNull MaskFormatter formatter) {
+        mDefaultFormatter = formatter;
+        return this;
+    }
+
+    public int size() {
+        return mFrom.size();
+    }
+
+    /**
+     * Returns formatter of the narrowest range, which contains every number starting with leading digits of text, or default formatter
+     */
+    @NonNull
+    public MaskFormatter find(@Nullable CharSequence text) {
+        compileIndex();
+        if (text == null)
+            return mDefaultFormatter;
+
+        long digits = 0;
+        int count = 0;
+        for (int i = 0, length = text.length(); i < length && count < mKeyLength; i++) {
+            char symbol = text.charAt(i);
+            if (symbol >= '0' && symbol <= '9') {
+                digits = digits * 10 + (symbol - '0');
+                count++;
+            } else if (CharClassifier.isLetterOrDigit(symbol)) {
+                break;
+            }
+        }
+        if (count == 0)
+            return mDefaultFormatter;
+
+        long scale = POWERS_OF_TEN[mKeyLength - count];
+        int interval = interval(digits * scale);
+        if (interval != interval(digits * scale + scale - 1))
+            return mDefaultFormatter;
+        MaskFormatter formatter = mIntervalFormatters[interval];
+        return formatter == null ? mDefaultFormatter : formatter;
+    }
+
+    /**
+     * Formats source with formatter selected by the source
+     *
+     * @see #find(CharSequence)
+     */
+    public String format(String source) {
+        return find(source).format(source);
+    }
+
+    /**
+     * Clears source with formatter selected by the source
+     *
+     * @see #find(CharSequence)
+     */
+    public String clear(String source) {
+        return find(source).clear(source);
+    }
+
+    /**
+     * Returns index of the interval containing the number
+     */
+    private int interval(long number) {
+        int index = Arrays.binarySearch(mIntervalStarts, number);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void compileIndex() {
+        if (mIsIndexCompiled)
+            return;
+        synchronized (this) {
+            if (mIsIndexCompiled)
+                return;
+
+            int keyLength = 0;
+            for (String from : mFrom) {
+                keyLength = Math.max(keyLength, from.length());
+            }
+            int count = mFrom.size();
+            long[] lows = new long[count];
+            long[] highs = new long[count];
+            // intervals start at range bounds and at zero for numbers below all ranges
+            long[] bounds = new long[count * 2 + 1];
+            for (int i = 0; i < count; i++) {
+                long scale = POWERS_OF_TEN[keyLength - mFrom.get(i).length()];
+                lows[i] = Long.parseLong(mFrom.get(i)) * scale;
+                highs[i] = (Long.parseLong(mTo.get(i)) + 1) * scale - 1;
+                bounds[i * 2] = lows[i];
+                bounds[i * 2 + 1] = highs[i] + 1;
+            }
+            bounds[count * 2] = 0;
+            Arrays.sort(bounds);
+
+            List<Long> starts = new ArrayList<>();
+            List<MaskFormatter> formatters = new ArrayList<>();
+            for (int i = 0; i < bounds.length; i++) {
+                if (i > 0 && bounds[i] == bounds[i - 1])
+                    continue;
+                MaskFormatter formatter = null;
+                long narrowest = Long.MAX_VALUE;
+                for (int range = 0; range < count; range++) {
+                    if (lows[range] <= bounds[i] && bounds[i] <= highs[range] && highs[range] - lows[range] <= narrowest) {
+                        narrowest = highs[range] - lows[range];
+                        formatter = mFormatters.get(range);
+                    }
+                }
+                if (!formatters.isEmpty() && formatters.get(formatters.size() - 1) == formatter)
+                    continue;
+                starts.add(bounds[i]);
+                formatters.add(formatter);
+            }
+
+            mIntervalStarts = new long[starts.size()];
+            for (int i = 0; i < mIntervalStarts.length; i++) {
+                mIntervalStarts[i] = starts.get(i);
+            }
+            mIntervalFormatters = formatters.toArray(new MaskFormatter[formatters.size()]);
+            mKeyLength = keyLength;
+            mIsIndexCompiled = true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of formatters selected by leading letters and digits of the text, like country calling codes or carrier ranges.
+ * <br/>Keys are compiled into a prefix trie, the formatter registered for the longest key matching the text is selected.
+ * Chars other than letters and digits are skipped while matching, so both {@code "380931234567"} and {@code "+380 (93) 123-45-67"}
+ * select the formatter registered for {@code "380"}. If no key matches, the default formatter is used.
+ * <br/>To keep the key in formatted text, configure the formatters with mask prefix and ignored input prefixes:
+ * <pre>
+ * {@code
+ * MaskRegistry registry = MaskRegistry.get()
+ *          .register("7", MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7"))
+ *          .register("380", MaskFormatter.get().mask("(##) ###-##-##").maskPrefix("+380 ").ignoreInputPrefixes("+380", "380"));
+ *     assertEquals("+380 (93) 123-45-67", registry.format("380931234567"));
+ * }
+ * </pre>
+ * Formatters are not rebuilt on selection. Configure the registry before use, then it can be read from any thread.
+ *
+ * @author Grishko Nikita
+ */
+public final class MaskRegistry implements MaskSelector {
+
+    private final List<String> mKeys = new ArrayList<>();
+    private final List<MaskFormatter> mFormatters = new ArrayList<>();
+    private MaskFormatter mDefaultFormatter = MaskFormatter.get();
+
+    /**
+     * Index of keys, lazily compiled after registration
+     */
+    private PrefixTrie mIndex;
+    private volatile boolean mIsIndexCompiled;
+
+    public static MaskRegistry get() {
+        return new MaskRegistry();
+    }
+
+    /**
+     * Registers formatter for text starting with given letters and digits. Formatter registered for the same key before is replaced
+     */
+    public MaskRegistry register(@NonNull String key, @NonNull MaskFormatter formatter) {
+        if (key.isEmpty())
+            throw new IllegalArgumentException("Key must not be empty");
+        for (int i = 0; i < key.length(); i++) {
+            if (!CharClassifier.isLetterOrDigit(key.charAt(i)))
+                throw new IllegalArgumentException("Key must contain only letters and digits: " + key);
+        }
+        int index = mKeys.indexOf(key);
+        if (index >= 0) {
+            mFormatters.set(index, formatter);
+        } else {
+            mKeys.add(key);
+            mFormatters.add(formatter);
+        }
+        mIsIndexCompiled = false;
+        return this;
+    }
+
+    /**
+     * Set formatter used for text which doesn't match any key.
+     * By default the text is not formatted.
+     */
+    public MaskRegistry defaultFormatter(@NonNull MaskFormatter formatter) {
+        mDefaultFormatter = formatter;
+        return this;
+    }
+
+    public int size() {
+        return mKeys.size();
+    }
+
+    /**
+     * Returns formatter registered for the longest key, which letters and digits of text start with, or default formatter
+     */
+    @NonNull
+    public MaskFormatter find(@Nullable CharSequence text) {
+        PrefixTrie index = index();
+        if (index == null || text == null)
+            return mDefaultFormatter;
+
+        int found = -1;
+        int node = PrefixTrie.ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char symbol = text.charAt(i);
+            if (!CharClassifier.isLetterOrDigit(symbol))
+                continue;
+            node = index.child(node, symbol);
+            if (node < 0)
+                break;
+            if (index.value(node) >= 0)
+                found = index.value(node);
+        }
+        return found < 0 ? mDefaultFormatter : mFormatters.get(found);
+    }
+
+    /**
+     * Formats source with formatter selected by the source
+     *
+     * @see #find(CharSequence)
+     */
+    public String format(String source) {
+        return find(source).format(source);
+    }
+
+    /**
+     * Clears source with formatter selected by the source
+     *
+     * @see #find(CharSequence)
+     */
+    public String clear(String source) {
+        return find(source).clear(source);
+    }
+
+    private PrefixTrie index() {
+        if (!mIsIndexCompiled) {
+            mIndex = PrefixTrie.compile(mKeys.toArray(new String[mKeys.size()]));
+            mIsIndexCompiled = true;
+        }
+        return mIndex;
+    }
+}
@@ -0,0 +1,235 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe, size bounded cache of {@link CompiledMask} formatting and clearing results, for values formatted again and again,
+ * like own and favorite numbers in list rows.
+ * <br/>Sources are looked up by content of {@link CharSequence}, so {@link StringBuilder} or {@code Editable} sources
+ * are copied to string only on cache miss. Cache is split into independently locked segments,
+ * every segment evicts its least recently used results. Results are computed out of lock.
+ * <br/>Cache hits are not reported to {@link FormatterMetrics}.
+ * <pre>
+ * {@code
+ * MaskResultCache cache = MaskFormatters.newResultCache(MaskFormatter.get().mask("(###) ###-##-##").build(), 256);
+ * String phone = cache.format(source);
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ * @see MaskFormatter#cacheResults(int)
+ */
+public final class MaskResultCache {
+
+    private static final int MAX_SEGMENTS_COUNT = 16;
+
+    private final CompiledMask mMask;
+    private final Segment[] mSegments;
+    private final int mMaximumSize;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    MaskResultCache(@NonNull CompiledMask mask, int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+        int segmentsCount = 1;
+        while (segmentsCount < MAX_SEGMENTS_COUNT && segmentsCount * 2 * 4 <= maximumSize) {
+            segmentsCount *= 2;
+        }
+        mSegments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++) {
+            int capacity = maximumSize / segmentsCount + (i < maximumSize % segmentsCount ? 1 : 0);
+            mSegments[i] = new Segment(capacity);
+        }
+        mMask = mask;
+        mMaximumSize = maximumSize;
+    }
+
+    @NonNull
+    public CompiledMask getMask() {
+        return mMask;
+    }
+
+    /**
+     * Returns source formatted with mask, like {@link CompiledMask#format(String)}
+     */
+    public String format(@Nullable CharSequence source) {
+        return get(source, false);
+    }
+
+    /**
+     * Returns source cleared with mask, like {@link CompiledMask#clear(String)}
+     */
+    public String clear(@Nullable CharSequence source) {
+        return get(source, true);
+    }
+
+    private String get(@Nullable CharSequence source, boolean clear) {
+        if (source == null)
+            return compute(null, clear);
+
+        int hash = hash(source, clear);
+        Segment segment = mSegments[(hash ^ (hash >>> 16)) & (mSegments.length - 1)];
+        synchronized (segment) {
+            Key lookup = segment.mLookup.set(source, hash, clear);
+            String result = segment.get(lookup);
+            lookup.mValue = null;
+            if (result != null) {
+                mHitCount.incrementAndGet();
+                return result;
+            }
+        }
+        mMissCount.incrementAndGet();
+        String value = source.toString();
+        String result = compute(value, clear);
+        synchronized (segment) {
+            segment.put(new Key().set(value, hash, clear), result);
+        }
+        return result;
+    }
+
+    private String compute(@Nullable String source, boolean clear) {
+        return clear ? mMask.clear(source) : mMask.format(source);
+    }
+
+    /**
+     * Returns the same hash for strings and other char sequences with equal content
+     */
+    private static int hash(@NonNull CharSequence source, boolean clear) {
+        int hash;
+        if (source instanceof String) {
+            hash = source.hashCode();
+        } else {
+            hash = 0;
+            for (int i = 0, length = source.length(); i < length; i++) {
+                hash = 31 * hash + source.charAt(i);
+            }
+        }
+        return clear ? ~hash : hash;
+    }
+
+    /**
+     * Removes all results from cache. Statistics is not reset
+     */
+    public void clear() {
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns count of cached results
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return mMaximumSize;
+    }
+
+    /**
+     * Returns count of requests returned cached result
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Returns count of requests which computed new result
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Returns count of results removed from cache because of size limit
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Returns part of requests returned cached result, or 1 if there were no requests
+     */
+    public double getHitRate() {
+        long hitCount = mHitCount.get();
+        long requestCount = hitCount + mMissCount.get();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Source content with operation. Stored keys hold strings, lookup key of segment holds the source only during lookup
+     */
+    private static final class Key {
+
+        private CharSequence mValue;
+        private int mHash;
+        private boolean mClear;
+
+        Key set(@NonNull CharSequence value, int hash, boolean clear) {
+            mValue = value;
+            mHash = hash;
+            mClear = clear;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            if (mHash != key.mHash || mClear != key.mClear) return false;
+            CharSequence value = key.mValue;
+            int length = mValue.length();
+            if (length != value.length()) return false;
+            for (int i = 0; i < length; i++) {
+                if (mValue.charAt(i) != value.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class Segment extends LinkedHashMap<Key, String> {
+
+        private final int mCapacity;
+        private final Key mLookup = new Key();
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            mCapacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            if (size() > mCapacity) {
+                mEvictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Selects formatter for the text, so {@code MaskTextWatcher} can switch masks as the user types.
+ * <br/>Selection must not allocate formatters, the same registered instances are returned for the same text.
+ *
+ * @author Grishko Nikita
+ * @see MaskRegistry
+ * @see MaskRangeRegistry
+ */
+public interface MaskSelector {
+
+    /**
+     * Returns formatter for the text, or default formatter if the text doesn't select any
+     */
+    @NonNull
+    MaskFormatter find(@Nullable CharSequence text);
+}
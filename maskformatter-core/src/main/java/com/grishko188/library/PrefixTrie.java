@@ -0,0 +1,181 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of prefixes compiled into a trie, which finds the longest prefix of text in one pass over the text.
+ * <br/>Every node, where a prefix ends, keeps index of the prefix in the compiled array, so trie can be used as a map.
+ * <br/>Nodes are stored in flat arrays: edges of every node are sorted by char and looked up with binary search,
+ * so lookup time depends on length of the matched text and not on count of prefixes.
+ *
+ * @author Grishko Nikita
+ */
+final class PrefixTrie {
+
+    /**
+     * Index of the first edge of every node in edge arrays, with extra entry for the end of the last node edges
+     */
+    private final int[] mEdgesStart;
+    private final char[] mEdgeChars;
+    private final int[] mEdgeTargets;
+    /**
+     * Index of the prefix ending at every node, or -1 if no prefix ends there
+     */
+    private final int[] mValues;
+
+    static final int ROOT = 0;
+
+    private PrefixTrie(int[] edgesStart, char[] edgeChars, int[] edgeTargets, int[] values) {
+        mEdgesStart = edgesStart;
+        mEdgeChars = edgeChars;
+        mEdgeTargets = edgeTargets;
+        mValues = values;
+    }
+
+    /**
+     * Compiles prefixes into trie. Null and empty prefixes are skipped, if prefix is repeated the last index is kept
+     *
+     * @return trie or null if there are no prefixes to match
+     */
+    @Nullable
+    static PrefixTrie compile(@Nullable String[] prefixes) {
+        if (prefixes == null)
+            return null;
+
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        children.add(new TreeMap<Character, Integer>());
+        values.add(-1);
+        int edgesCount = 0;
+        for (int index = 0; index < prefixes.length; index++) {
+            String prefix = prefixes[index];
+            if (prefix == null || prefix.isEmpty())
+                continue;
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                Integer next = children.get(node).get(prefix.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(prefix.charAt(i), next);
+                    children.add(new TreeMap<Character, Integer>());
+                    values.add(-1);
+                    edgesCount++;
+                }
+                node = next;
+            }
+            values.set(node, index);
+        }
+        if (edgesCount == 0)
+            return null;
+
+        int nodesCount = children.size();
+        int[] edgesStart = new int[nodesCount + 1];
+        char[] edgeChars = new char[edgesCount];
+        int[] edgeTargets = new int[edgesCount];
+        int[] nodeValues = new int[nodesCount];
+        int edge = 0;
+        for (int node = 0; node < nodesCount; node++) {
+            edgesStart[node] = edge;
+            nodeValues[node] = values.get(node);
+            for (Map.Entry<Character, Integer> child : children.get(node).entrySet()) {
+                edgeChars[edge] = child.getKey();
+                edgeTargets[edge++] = child.getValue();
+            }
+        }
+        edgesStart[nodesCount] = edge;
+        return new PrefixTrie(edgesStart, edgeChars, edgeTargets, nodeValues);
+    }
+
+    void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeInt(mValues.length);
+        out.writeInt(mEdgeChars.length);
+        for (int node = 0; node < mValues.length; node++) {
+            out.writeInt(mEdgesStart[node]);
+            out.writeInt(mValues[node]);
+        }
+        for (int edge = 0; edge < mEdgeChars.length; edge++) {
+            out.writeChar(mEdgeChars[edge]);
+            out.writeInt(mEdgeTargets[edge]);
+        }
+    }
+
+    /**
+     * Reads trie written by {@link #writeTo(DataOutput)}
+     */
+    static PrefixTrie read(@NonNull ByteBuffer in) {
+        // node is int first edge and int value, edge is char and int target
+        int nodesCount = MaskBundle.readCount(in, 8);
+        int edgesCount = MaskBundle.readCount(in, 6);
+        if (nodesCount == 0)
+            throw new IllegalArgumentException("Trie has no root node");
+        int[] edgesStart = new int[nodesCount + 1];
+        int[] values = new int[nodesCount];
+        for (int node = 0; node < nodesCount; node++) {
+            edgesStart[node] = in.getInt();
+            values[node] = in.getInt();
+            if (edgesStart[node] < (node == 0 ? 0 : edgesStart[node - 1]) || edgesStart[node] > edgesCount)
+                throw new IllegalArgumentException("Corrupted trie node edges: " + edgesStart[node]);
+        }
+        edgesStart[nodesCount] = edgesCount;
+        char[] edgeChars = new char[edgesCount];
+        int[] edgeTargets = new int[edgesCount];
+        for (int edge = 0; edge < edgesCount; edge++) {
+            edgeChars[edge] = in.getChar();
+            edgeTargets[edge] = in.getInt();
+            if (edgeTargets[edge] <= ROOT || edgeTargets[edge] >= nodesCount)
+                throw new IllegalArgumentException("Corrupted trie edge target: " + edgeTargets[edge]);
+        }
+        return new PrefixTrie(edgesStart, edgeChars, edgeTargets, values);
+    }
+
+    /**
+     * Returns length of the longest prefix which the text starts with, or 0 if there is no such prefix
+     */
+    int longestMatch(@NonNull CharSequence text) {
+        int longest = 0;
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            node = child(node, text.charAt(i));
+            if (node < 0)
+                break;
+            if (mValues[node] >= 0)
+                longest = i + 1;
+        }
+        return longest;
+    }
+
+    /**
+     * Returns index of the prefix ending at given node, or -1 if no prefix ends there
+     */
+    int value(int node) {
+        return mValues[node];
+    }
+
+    /**
+     * Returns node reached from given node by the symbol, or -1 if there is no such node
+     */
+    int child(int node, char symbol) {
+        int low = mEdgesStart[node];
+        int high = mEdgesStart[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleChar = mEdgeChars[middle];
+            if (middleChar < symbol)
+                low = middle + 1;
+            else if (middleChar > symbol)
+                high = middle - 1;
+            else
+                return mEdgeTargets[middle];
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,181 @@
+package com.grishko188.library;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable set of chars accepted by mask slot.
+ * <br/>ASCII chars are kept in 128 bit table, so checking the most common input takes one shift and one mask.
+ * Other chars are checked with {@link Character} for standard classes, or with binary search in sorted array for custom sets.
+ * <pre>
+ * {@code
+ * MaskFormatter formatter = MaskFormatter.get().mask("AA 000000")
+ *                                  .slot('A', SlotClass.LETTER)
+ *                                  .slot('0', SlotClass.DIGIT);
+ *     assertEquals("AB 123456", formatter.format("AB-123456"));
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ */
+public final class SlotClass {
+
+    private static final int UNICODE_DIGITS = 1;
+    private static final int UNICODE_LETTERS = 1 << 1;
+
+    /**
+     * Any letter or digit, the class of replacement char slots
+     */
+    public static final SlotClass LETTER_OR_DIGIT = new SlotClass(CharClassifier.DIGIT | CharClassifier.LETTER,
+            UNICODE_DIGITS | UNICODE_LETTERS, new char[0]);
+    public static final SlotClass DIGIT = new SlotClass(CharClassifier.DIGIT, UNICODE_DIGITS, new char[0]);
+    public static final SlotClass LETTER = new SlotClass(CharClassifier.LETTER, UNICODE_LETTERS, new char[0]);
+    /**
+     * ASCII hexadecimal digit, case insensitive
+     */
+    public static final SlotClass HEX_DIGIT = new SlotClass(CharClassifier.HEX_DIGIT, 0, new char[0]);
+
+    private final long mAsciiLow;
+    private final long mAsciiHigh;
+    private final int mUnicodeClasses;
+    /**
+     * Sorted non-ASCII chars of custom set
+     */
+    private final char[] mChars;
+
+    private SlotClass(long asciiLow, long asciiHigh, int unicodeClasses, char[] chars) {
+        mAsciiLow = asciiLow;
+        mAsciiHigh = asciiHigh;
+        mUnicodeClasses = unicodeClasses;
+        mChars = chars;
+    }
+
+    private SlotClass(int asciiFlags, int unicodeClasses, char[] chars) {
+        long low = 0;
+        long high = 0;
+        for (char symbol = 0; symbol < 128; symbol++) {
+            if (CharClassifier.hasFlags(symbol, asciiFlags)) {
+                if (symbol < 64)
+                    low |= 1L << symbol;
+                else
+                    high |= 1L << (symbol - 64);
+            }
+        }
+        mAsciiLow = low;
+        mAsciiHigh = high;
+        mUnicodeClasses = unicodeClasses;
+        mChars = chars;
+    }
+
+    /**
+     * Creates class, which accepts only the given chars. Chars of surrogate pairs are not allowed, slots never split supplementary code points
+     */
+    public static SlotClass of(@NonNull String chars) {
+        if (chars.isEmpty())
+            throw new IllegalArgumentException("Slot class must contain at least one char");
+        return new SlotClass(0L, 0L, 0, new char[0]).plus(chars);
+    }
+
+    /**
+     * Creates class, which accepts chars of this class and the given chars
+     */
+    public SlotClass plus(@NonNull String chars) {
+        long low = mAsciiLow;
+        long high = mAsciiHigh;
+        char[] other = new char[mChars.length + chars.length()];
+        System.arraycopy(mChars, 0, other, 0, mChars.length);
+        int otherCount = mChars.length;
+        for (int i = 0; i < chars.length(); i++) {
+            char symbol = chars.charAt(i);
+            if (CharClassifier.isSurrogate(symbol))
+                throw new IllegalArgumentException("Slot class can't contain surrogate chars: " + chars);
+            if (symbol < 64)
+                low |= 1L << symbol;
+            else if (symbol < 128)
+                high |= 1L << (symbol - 64);
+            else
+                other[otherCount++] = symbol;
+        }
+        Arrays.sort(other, 0, otherCount);
+        int unique = 0;
+        for (int i = 0; i < otherCount; i++) {
+            if (unique == 0 || other[unique - 1] != other[i])
+                other[unique++] = other[i];
+        }
+        return new SlotClass(low, high, mUnicodeClasses, Arrays.copyOf(other, unique));
+    }
+
+    /**
+     * Creates class, which accepts chars of this and the other class
+     */
+    public SlotClass plus(@NonNull SlotClass other) {
+        return new SlotClass(mAsciiLow | other.mAsciiLow, mAsciiHigh | other.mAsciiHigh,
+                mUnicodeClasses | other.mUnicodeClasses, mChars).plus(new String(other.mChars));
+    }
+
+    public boolean accepts(char symbol) {
+        if (symbol < 64)
+            return (mAsciiLow & 1L << symbol) != 0;
+        if (symbol < 128)
+            return (mAsciiHigh & 1L << (symbol - 64)) != 0;
+        if ((mUnicodeClasses & UNICODE_DIGITS) != 0 && Character.isDigit(symbol))
+            return true;
+        if ((mUnicodeClasses & UNICODE_LETTERS) != 0 && Character.isLetter(symbol))
+            return true;
+        return mChars.length > 0 && Arrays.binarySearch(mChars, symbol) >= 0;
+    }
+
+    void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeLong(mAsciiLow);
+        out.writeLong(mAsciiHigh);
+        out.writeByte(mUnicodeClasses);
+        out.writeInt(mChars.length);
+        for (char symbol : mChars) {
+            out.writeChar(symbol);
+        }
+    }
+
+    /**
+     * Reads class written by {@link #writeTo(DataOutput)}, standard classes are returned as their constants
+     */
+    static SlotClass read(@NonNull ByteBuffer in) {
+        long asciiLow = in.getLong();
+        long asciiHigh = in.getLong();
+        int unicodeClasses = in.get();
+        char[] chars = new char[MaskBundle.readCount(in, 2)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = in.getChar();
+        }
+        SlotClass slotClass = new SlotClass(asciiLow, asciiHigh, unicodeClasses, chars);
+        for (SlotClass standard : new SlotClass[]{LETTER_OR_DIGIT, DIGIT, LETTER, HEX_DIGIT}) {
+            if (standard.equals(slotClass))
+                return standard;
+        }
+        return slotClass;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof SlotClass))
+            return false;
+        SlotClass slotClass = (SlotClass) o;
+        return mAsciiLow == slotClass.mAsciiLow
+                && mAsciiHigh == slotClass.mAsciiHigh
+                && mUnicodeClasses == slotClass.mUnicodeClasses
+                && Arrays.equals(mChars, slotClass.mChars);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = (int) (mAsciiLow ^ mAsciiLow >>> 32);
+        hashCode = 31 * hashCode + (int) (mAsciiHigh ^ mAsciiHigh >>> 32);
+        hashCode = 31 * hashCode + mUnicodeClasses;
+        return 31 * hashCode + Arrays.hashCode(mChars);
+    }
+}
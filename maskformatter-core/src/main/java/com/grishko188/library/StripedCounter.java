@@ -0,0 +1,93 @@
+package com.grishko188.library;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of counters split into stripes, so threads updating the same counter mostly write to different cache lines.
+ * <br/>Works like {@code LongAdder}, which is not available on old Android versions: updates are cheap,
+ * reading sums all stripes and is not atomic with respect to concurrent updates.
+ * Counters are kept in one plain array until an update loses a race, only then padded stripes for every CPU are allocated.
+ *
+ * @author Grishko Nikita
+ */
+final class StripedCounter {
+
+    /**
+     * Count of longs in 64 byte cache line
+     */
+    private static final int LINE_LONGS = 8;
+    private static final int MAX_STRIPES = 64;
+
+    static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors * 2 && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    /**
+     * Length of stripe, rounded up to whole cache lines
+     */
+    private final int mStride;
+    private final AtomicLongArray mBase;
+    private volatile AtomicLongArray mStripes;
+
+    StripedCounter(int counters) {
+        mStride = (counters + LINE_LONGS - 1) / LINE_LONGS * LINE_LONGS;
+        mBase = new AtomicLongArray(counters);
+    }
+
+    void add(int counter, long value) {
+        AtomicLongArray stripes = mStripes;
+        if (stripes == null) {
+            long current = mBase.get(counter);
+            if (mBase.compareAndSet(counter, current, current + value))
+                return;
+            stripes = inflate();
+        }
+        stripes.getAndAdd(stripe() + counter, value);
+    }
+
+    void increment(int counter) {
+        add(counter, 1);
+    }
+
+    long sum(int counter) {
+        long sum = mBase.get(counter);
+        AtomicLongArray stripes = mStripes;
+        if (stripes != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                sum += stripes.get(LINE_LONGS + i * mStride + counter);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns true if updates are contended and stripes are allocated
+     */
+    boolean isInflated() {
+        return mStripes != null;
+    }
+
+    private synchronized AtomicLongArray inflate() {
+        if (mStripes == null) {
+            // one extra line at the start keeps the first stripe away from the array header
+            mStripes = new AtomicLongArray(LINE_LONGS + STRIPES * mStride);
+        }
+        return mStripes;
+    }
+
+    /**
+     * Returns index of the current thread stripe start
+     */
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return LINE_LONGS + (hash & (STRIPES - 1)) * mStride;
+    }
+}
@@ -0,0 +1,46 @@
+package com.grishko188.library;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Common interface of mask formatters: configurable {@link MaskFormatter}, immutable {@link CompiledMask}
+ * and formatters generated for constant masks annotated with {@link Mask}.
+ * <br/>This is everything {@code MaskTextWatcher} needs to format user input.
+ *
+ * @author Grishko Nikita
+ */
+public interface TextFormatter {
+
+    String getMask();
+
+    @Nullable
+    String getMaskPrefix();
+
+    boolean isPrefixNecessarily();
+
+    boolean isMaskStrict();
+
+    /**
+     * Returns count of replacement chars in mask, i.e. maximum count of source chars that can be formatted
+     */
+    int getSlotCount();
+
+    /**
+     * Returns true if the char is accepted at least by one slot of mask
+     */
+    boolean accepts(char symbol);
+
+    String format(String source);
+
+    String clear(String source);
+
+    /**
+     * Returns position in formatted text right after given count of raw chars, with mask prefix accounted for
+     */
+    int toFormattedOffset(int rawOffset);
+
+    /**
+     * Returns count of raw chars placed before given position of formatted text, with mask prefix accounted for
+     */
+    int toRawOffset(int formattedOffset);
+}
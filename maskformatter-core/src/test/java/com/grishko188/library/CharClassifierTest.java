@@ -0,0 +1,67 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CharClassifierTest {
+
+    @Test
+    public void test_sameAsCharacterForBasicPlane() {
+        for (char symbol = 0; symbol < Character.MAX_VALUE; symbol++) {
+            assertEquals(Character.isLetterOrDigit(symbol), CharClassifier.isLetterOrDigit(symbol));
+        }
+    }
+
+    @Test
+    public void test_hexDigits() {
+        assertTrue(CharClassifier.hasFlags('0', CharClassifier.HEX_DIGIT));
+        assertTrue(CharClassifier.hasFlags('f', CharClassifier.HEX_DIGIT));
+        assertTrue(CharClassifier.hasFlags('F', CharClassifier.HEX_DIGIT));
+        assertFalse(CharClassifier.hasFlags('g', CharClassifier.HEX_DIGIT));
+        assertFalse(CharClassifier.hasFlags('٠', CharClassifier.HEX_DIGIT));
+    }
+
+    @Test
+    public void test_surrogatePairs() {
+        String text = "1𝐀";
+
+        assertEquals(2, CharClassifier.charCountBefore(text, 0, 3));
+        assertEquals(1, CharClassifier.charCountBefore(text, 2, 3));
+        assertEquals(1, CharClassifier.charCountBefore(text, 0, 1));
+        assertEquals("12 3", MaskFormatter.get().mask("## #").format("1𝐀2😀3"));
+    }
+
+    @Test
+    public void test_surrogatePairsAreNeverSplit() {
+        CompiledMask mask = MaskFormatter.get().mask("(###) ###").maskPrefix("+7 ").build();
+        String source = "93𝟏07𝐀92";
+
+        assertEquals("+7 (930) 792", mask.format(source));
+        char[] destination = new char[16];
+        assertEquals("+7 (930) 792", new String(destination, 0, mask.formatTo(source, destination, 0)));
+        IncrementalFormatter incremental = new IncrementalFormatter(mask);
+        incremental.reset(source);
+        assertEquals("+7 (930) 792", incremental.getFormatted().toString());
+
+        assertEquals("(930) 7𝟏92", mask.clear("+7 (930) 7𝟏92"));
+        assertTrue(mask.isComplete("+7 (930) 7𝟏92"));
+
+        assertFalse(SlotClass.DIGIT.accepts("𝟏".charAt(0)));
+        assertFalse(SlotClass.LETTER.accepts("𝐀".charAt(1)));
+        assertFalse(mask.accepts("𝟏".charAt(1)));
+        assertEquals("𝐀𝐀 12", MaskFormatter.get().mask("𝐀𝐀 ##").format("12"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_surrogateSlotClass() {
+        SlotClass.of("𝐀");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_surrogateSlotChar() {
+        MaskFormatter.get().slot("𝐀".charAt(0), SlotClass.DIGIT);
+    }
+}
@@ -0,0 +1,64 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvMaskProcessorTest {
+
+    private static final CompiledMask PHONE = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ")
+            .ignoreInputPrefixes("+7", "7", "8").build();
+
+    private static String process(CsvMaskProcessor processor, String input) throws IOException {
+        StringWriter writer = new StringWriter();
+        processor.process(new StringReader(input), writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void test_formatColumn() throws IOException {
+        CsvMaskProcessor processor = new CsvMaskProcessor(',').skipHeader(true).format(1, PHONE);
+        String input = "name,phone,city\r\nIvan,89301234567,Kyiv\r\n\"Petrov, Petr\",9301112233,\"Lviv\"\r\n";
+        String expected = "name,phone,city\r\nIvan,+7 (930) 123-45-67,Kyiv\r\n\"Petrov, Petr\",+7 (930) 111-22-33,\"Lviv\"\r\n";
+        assertEquals(expected, process(processor, input));
+    }
+
+    @Test
+    public void test_clearColumn() throws IOException {
+        CsvMaskProcessor processor = new CsvMaskProcessor(';').clear(0, PHONE);
+        assertEquals("9301234567;a\n\n\"9301112233\";b", process(processor, "+7 (930) 123-45-67;a\n\n\"+7 (930) 111-22-33\";b"));
+    }
+
+    @Test
+    public void test_quotedValues() throws IOException {
+        CompiledMask mask = MaskFormatter.get().mask("##,##").build();
+        CsvMaskProcessor processor = new CsvMaskProcessor(',').format(0, mask).format(2, mask);
+        assertEquals("\"12,34\",\"a \"\"b\"\"\nc\",\"56,78\"\n", process(processor, "1234,\"a \"\"b\"\"\nc\",\"5678\"\n"));
+    }
+
+    @Test
+    public void test_recordsCount() throws IOException {
+        CsvMaskProcessor processor = new CsvMaskProcessor(',').skipHeader(true).format(0, PHONE);
+        StringWriter writer = new StringWriter();
+        assertEquals(3, processor.process(new StringReader("phone\n9301234567\n\n9301112233"), writer));
+        assertEquals("phone\n+7 (930) 123-45-67\n\n+7 (930) 111-22-33", writer.toString());
+        assertEquals(0, processor.process(new StringReader(""), new StringWriter()));
+    }
+
+    @Test
+    public void test_longInput() throws IOException {
+        CsvMaskProcessor processor = new CsvMaskProcessor(',').format(0, PHONE);
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            String phone = String.valueOf(9300000000L + i);
+            input.append(phone).append(',').append(i).append('\n');
+            expected.append(PHONE.format(phone)).append(',').append(i).append('\n');
+        }
+        assertEquals(expected.toString(), process(processor, input.toString()));
+    }
+}
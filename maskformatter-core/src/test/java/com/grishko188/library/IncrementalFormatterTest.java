@@ -0,0 +1,92 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalFormatterTest {
+
+    private static final String PHONE_MASK = "(###) ###-##-##";
+
+    @Test
+    public void test_typing() {
+        IncrementalFormatter formatter = new IncrementalFormatter(MaskFormatter.get().mask(PHONE_MASK).build());
+        formatter.reset("");
+
+        String text = "";
+        for (char symbol : "9307920000".toCharArray()) {
+            int start = text.length();
+            text = text + symbol;
+            formatter.edit(text, start, 0, 1);
+            text = formatter.getFormatted().toString();
+            assertEquals(text.length(), formatter.getSelection());
+        }
+        assertEquals("(930) 792-00-00", text);
+        assertEquals("9307920000", formatter.getRaw());
+    }
+
+    @Test
+    public void test_insertInTheMiddle() {
+        IncrementalFormatter formatter = new IncrementalFormatter(MaskFormatter.get().mask(PHONE_MASK).build());
+        formatter.reset("(930) 792-00");
+
+        formatter.edit("(930) 7592-00", 7, 0, 1);
+
+        assertEquals("(930) 759-20-0", formatter.getFormatted().toString());
+        assertEquals(8, formatter.getSelection());
+    }
+
+    @Test
+    public void test_removeLiteral() {
+        IncrementalFormatter formatter = new IncrementalFormatter(MaskFormatter.get().mask(PHONE_MASK).build());
+        formatter.reset("(930) 792-00");
+
+        formatter.edit("(930) 79200", 9, 1, 0);
+
+        assertEquals("(930) 790-0", formatter.getFormatted().toString());
+        assertEquals(8, formatter.getSelection());
+    }
+
+    @Test
+    public void test_pasteWithPrefix() {
+        IncrementalFormatter formatter = new IncrementalFormatter(MaskFormatter.get().mask(PHONE_MASK)
+                .maskPrefix("+7 ")
+                .useMaskPrefixNecessarily(true)
+                .ignoreInputPrefixes("+7", "7", "8")
+                .build());
+        formatter.reset("");
+        assertEquals("+7 ", formatter.getFormatted().toString());
+
+        formatter.edit("+7 89307920000", 3, 0, 11);
+
+        assertEquals("+7 (930) 792-00-00", formatter.getFormatted().toString());
+        assertEquals("9307920000", formatter.getRaw());
+    }
+
+    @Test
+    public void test_notMatchingTextIsCleared() {
+        IncrementalFormatter formatter = new IncrementalFormatter(MaskFormatter.get().mask(PHONE_MASK).build());
+        formatter.reset("(930) 792");
+
+        formatter.edit("930792001", 0, 9, 9);
+
+        assertEquals("(930) 792-00-1", formatter.getFormatted().toString());
+    }
+
+    @Test
+    public void test_switchMask() {
+        CompiledMask card = MaskFormatter.get().mask("#### #### #### ####").build();
+        CompiledMask amex = MaskFormatter.get().mask("#### ###### #####").build();
+        IncrementalFormatter formatter = new IncrementalFormatter(card);
+        formatter.reset("3712 3456");
+
+        formatter.reset(amex, "3712 34567");
+        assertEquals("3712 34567", formatter.getFormatted().toString());
+        formatter.edit("3712 345678", 10, 0, 1);
+        assertEquals("3712 345678", formatter.getFormatted().toString());
+
+        formatter.reset(MaskFormatter.get().mask("#### #### #### #### #### #### ####").build(), "1234567890123456789012345678");
+        assertEquals("1234 5678 9012 3456 7890 1234 5678", formatter.getFormatted().toString());
+        assertEquals(28, formatter.getRawLength());
+    }
+}
@@ -0,0 +1,60 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MaskBatchTest {
+
+    private static final int COUNT = 50000;
+
+    @Test
+    public void test_formatAllKeepsOrder() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ");
+        String[] sources = new String[COUNT];
+        String[] expected = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            sources[i] = String.valueOf(9300000000L + i);
+            expected[i] = formatter.format(sources[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertArrayEquals(expected, formatter.formatAll(sources, executor));
+        } finally {
+            executor.shutdown();
+        }
+        assertArrayEquals(expected, formatter.formatAll(sources));
+        assertArrayEquals(sources, formatter.clearAll(expected));
+    }
+
+    @Test
+    public void test_clearAllList() {
+        MaskFormatter formatter = MaskFormatter.get().mask("#### #### #### ####");
+        List<StringBuilder> sources = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            String number = String.valueOf(4111111111111111L + i);
+            sources.add(new StringBuilder(formatter.format(number)));
+            expected.add(number);
+        }
+
+        assertEquals(expected, formatter.clearAll(sources));
+        assertEquals(expected, formatter.clearAll(new LinkedList<>(sources)));
+    }
+
+    @Test
+    public void test_smallBatch() {
+        MaskFormatter formatter = MaskFormatter.get().mask("## ##");
+
+        assertEquals(Arrays.asList("12 34", null, ""), formatter.formatAll(Arrays.asList("1234", null, "")));
+    }
+}
@@ -0,0 +1,137 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MaskBundleTest {
+
+    private static final String[] KEYS = {"phone", "card", "passport", "custom", "empty", "code"};
+    private static final MaskFormatter[] FORMATTERS = {
+            MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7", "8"),
+            MaskFormatter.get().mask("#### #### #### ####").strictMask(false),
+            MaskFormatter.get().mask("AA 000000-H*").useStandardSlots().maskPrefix("AB").useMaskPrefixNecessarily(true),
+            MaskFormatter.get().mask("ЖЖ-##").slot('Ж', SlotClass.of("Жжab")).ignoreInputPrefixes("ж", "жж"),
+            MaskFormatter.get(),
+            MaskFormatter.get().mask("\\__\"__\n").symbol('_').maskPrefix("\"")
+    };
+
+    private static final String ALPHABET = "0123456789abcdefABXZ +7()-_\"\\\n#8Жж";
+
+    private static byte[] writeBundle() {
+        MaskBundleWriter writer = MaskBundleWriter.get();
+        for (int i = 0; i < KEYS.length; i++) {
+            writer.add(KEYS[i], FORMATTERS[i]);
+        }
+        return writer.toByteArray();
+    }
+
+    @Test
+    public void test_decodedMasksMatchCompiled() {
+        byte[] bytes = writeBundle();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        direct.put(new byte[3]).put(bytes).position(3);
+
+        for (MaskBundle bundle : new MaskBundle[]{MaskBundle.load(ByteBuffer.wrap(bytes)), MaskBundle.load(direct)}) {
+            assertEquals(KEYS.length, bundle.size());
+            Random random = new Random(42);
+            for (int i = 0; i < KEYS.length; i++) {
+                CompiledMask expected = FORMATTERS[i].build();
+                CompiledMask actual = bundle.get(KEYS[i]);
+
+                assertEquals(expected.getMask(), actual.getMask());
+                assertEquals(expected.getMaskPrefix(), actual.getMaskPrefix());
+                assertEquals(expected.isPrefixNecessarily(), actual.isPrefixNecessarily());
+                assertEquals(expected.isMaskStrict(), actual.isMaskStrict());
+                assertEquals(expected.getSlotCount(), actual.getSlotCount());
+                for (int offset = -1; offset < 30; offset++) {
+                    assertEquals(expected.toFormattedOffset(offset), actual.toFormattedOffset(offset));
+                    assertEquals(expected.toRawOffset(offset), actual.toRawOffset(offset));
+                }
+                for (int j = 0; j < 5000; j++) {
+                    String source = randomSource(random);
+                    assertEquals(source, expected.format(source), actual.format(source));
+                    assertEquals(source, expected.clear(source), actual.clear(source));
+                    assertEquals(source, expected.clearStatic(source), actual.clearStatic(source));
+                }
+            }
+        }
+    }
+
+    private static String randomSource(Random random) {
+        StringBuilder source = new StringBuilder();
+        for (int i = random.nextInt(24); i > 0; i--) {
+            source.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return source.toString();
+    }
+
+    @Test
+    public void test_masksAreDecodedLazily() {
+        MaskBundle bundle = MaskBundle.load(ByteBuffer.wrap(writeBundle()));
+        int index = bundle.indexOf(new StringBuilder("phone"));
+        assertEquals("phone", bundle.getKey(index));
+        assertEquals(-1, bundle.indexOf("phone2"));
+        assertNull(bundle.get("unknown"));
+        for (int i = 0; i < bundle.size(); i++) {
+            assertFalse(bundle.isDecoded(i));
+        }
+
+        CompiledMask phone = bundle.get(index);
+        assertTrue(bundle.isDecoded(index));
+        assertFalse(bundle.isDecoded(bundle.indexOf("card")));
+        assertSame(phone, bundle.get("phone"));
+        assertEquals("+7 (930) 792-00-00", phone.format("89307920000"));
+    }
+
+    @Test
+    public void test_unsupportedVersionIsRejected() {
+        byte[] bytes = writeBundle();
+        bytes[5] = 2;
+        try {
+            MaskBundle.load(ByteBuffer.wrap(bytes));
+            fail("Version 2 must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unsupported mask bundle version: 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_corruptedEntriesAreRejected() {
+        byte[] bytes = writeBundle();
+        Random random = new Random(42);
+        for (int corruption : new int[]{Integer.MAX_VALUE, -2, 0x00FF00FF, 100, 1}) {
+            for (int i = 0; i < KEYS.length; i++) {
+                int entryOffset = entryOffset(bytes, i);
+                int entryEnd = i + 1 < KEYS.length ? entryOffset(bytes, i + 1) : bytes.length;
+                for (int offset = entryOffset; offset < entryEnd - 4; offset++) {
+                    byte[] corrupted = bytes.clone();
+                    ByteBuffer.wrap(corrupted).putInt(offset, corruption);
+                    CompiledMask mask;
+                    try {
+                        mask = MaskBundle.load(ByteBuffer.wrap(corrupted)).get(i);
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    // entry is still consistent, so formatting must work
+                    for (int j = 0; j < 20; j++) {
+                        String source = randomSource(random);
+                        mask.clear(mask.format(source));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int entryOffset(byte[] bundle, int index) {
+        return ByteBuffer.wrap(bundle).getInt(MaskBundle.HEADER_SIZE + index * MaskBundle.INDEX_ENTRY_SIZE + 4);
+    }
+}
@@ -0,0 +1,50 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class MaskCacheTest {
+
+    @Test
+    public void test_sameConfigurationReturnsSameMask() {
+        MaskCache cache = MaskFormatters.newCache(8);
+
+        CompiledMask first = cache.get(MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7"));
+        CompiledMask second = cache.get(MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7"));
+
+        assertSame(first, second);
+        assertEquals("+7 (930) 792-00-00", second.format("79307920000"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void test_differentConfigurationReturnsDifferentMasks() {
+        MaskCache cache = MaskFormatters.newCache(8);
+
+        CompiledMask strict = cache.get(MaskFormatter.get().mask("## ## ####"));
+        CompiledMask notStrict = cache.get(MaskFormatter.get().mask("## ## ####").strictMask(false));
+
+        assertNotSame(strict, notStrict);
+        assertEquals("12 34 5678", strict.format("1234567890"));
+        assertEquals("1234567890", notStrict.format("1234567890"));
+        assertNotSame(cache.get("##-##"), cache.get("##-##", '-'));
+    }
+
+    @Test
+    public void test_eviction() {
+        MaskCache cache = MaskFormatters.newCache(2);
+
+        CompiledMask first = cache.get("#-#");
+        cache.get("#-##");
+        cache.get("#-#");
+        cache.get("#-###");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.get("#-#"));
+    }
+}
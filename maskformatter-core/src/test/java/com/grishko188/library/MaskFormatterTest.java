@@ -0,0 +1,257 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MaskFormatterTest {
+
+    private static final String SIMPLE_NUMBERS = "123456789";
+    private static final String SIMPLE_PHONE = "9307920000";
+    private static final String FULL_PHONE = "79307920000";
+
+    @Test
+    public void test_SimpleFormat() {
+        MaskFormatter formatter = MaskFormatter.get().mask("### ### ###");
+        assertEquals("123 456 789", formatter.format(SIMPLE_NUMBERS));
+    }
+
+    @Test
+    public void test_SimplePhoneFormat() {
+        MaskFormatter formatter = MaskFormatter.get().mask("+7 (###) ###-##-##");
+        assertEquals("+7 (930) 792-00-00", formatter.format(SIMPLE_PHONE));
+    }
+
+    @Test
+    public void test_IgnoreInputPrefixes() {
+        MaskFormatter formatter = MaskFormatter.get().mask("+7 (###) ###-##-##")
+                .ignoreInputPrefixes("+7", "7");
+        assertEquals("+7 (930) 792-00-00", formatter.format(FULL_PHONE));
+    }
+
+    @Test
+    public void test_maskPrefix() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##")
+                .ignoreInputPrefixes("+7", "7")
+                .maskPrefix("+7 ");
+        assertEquals("+7 (930) 792-00-00", formatter.format(FULL_PHONE));
+    }
+
+    @Test
+    public void test_maskPrefixWithDifferentNumbers() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##")
+                .ignoreInputPrefixes("+7", "7", "+7 ", "7 ", "8")
+                .maskPrefix("+7 ");
+
+        assertEquals("+7 (930) 792-00-00", formatter.format(FULL_PHONE));
+        assertEquals("+7 (930) 792-00-00", formatter.format("9307920000"));
+        assertEquals("+7 (930) 792-00-00", formatter.format("+79307920000"));
+        assertEquals("+7 (930) 792-00-00", formatter.format("79307920000"));
+        assertEquals("+7 (930) 792-00-00", formatter.format("+9307920000"));
+        assertEquals("+7 (930) 792-00-00", formatter.format("7(930)7920000"));
+        assertEquals("+7 (930) 792-00-00", formatter.format("7 930 792 00 00"));
+        assertEquals("+7 (930) 792-00-00", formatter.format("89307920000"));
+    }
+
+    @Test
+    public void test_longestIgnoredPrefix() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##")
+                .ignoreInputPrefixes("+3", "3", "+38", "38")
+                .maskPrefix("+38 ");
+
+        assertEquals("+38 (093) 792-00-00", formatter.format("+380937920000"));
+        assertEquals("+38 (093) 792-00-00", formatter.format("380937920000"));
+        assertEquals("+38 (093) 792-00-00", formatter.format("0937920000"));
+    }
+
+    @Test
+    public void test_manyIgnoredPrefixes() {
+        String[] prefixes = new String[1001];
+        for (int i = 0; i < 1000; i++) {
+            prefixes[i] = String.format("+8%03d", i);
+        }
+        prefixes[1000] = "+7";
+        MaskFormatter formatter = MaskFormatter.get().mask("### ### ####").ignoreInputPrefixes(prefixes);
+
+        assertEquals("930 792 0000", formatter.format("+81239307920000"));
+        assertEquals("930 792 0000", formatter.format("+79307920000"));
+        assertEquals("930 792 0000", formatter.format("9307920000"));
+    }
+
+    @Test
+    public void test_maskPrefixWithClear() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##")
+                .ignoreInputPrefixes("+7", "7")
+                .maskPrefix("+7 ");
+
+        String formatted = formatter.format(FULL_PHONE);
+
+        assertEquals("9307920000", formatter.clear(formatted));
+        assertEquals("9307920000", formatter.clearStatic(formatted));
+    }
+
+    @Test
+    public void test_maskStrictMode() {
+        String input = "1234567890";
+
+        MaskFormatter formatter = MaskFormatter.get().mask("## ## ####");
+
+        formatter.strictMask(true);
+
+        String formatted = formatter.format(input);
+
+        assertEquals("12 34 5678", formatted);
+
+        formatter.strictMask(false);
+        String formattedNonStrict = formatter.format(input);
+
+        assertEquals(input, formattedNonStrict);
+    }
+
+    @Test
+    public void test_compiledMask() {
+        CompiledMask mask = MaskFormatter.get().mask("(###) ###-##-##")
+                .ignoreInputPrefixes("+7", "7")
+                .maskPrefix("+7 ")
+                .build();
+
+        assertEquals('#', mask.getReplacementChar());
+        assertEquals(10, mask.getSlotCount());
+        assertEquals("+7 (930) 792-00-00", mask.format(FULL_PHONE));
+        assertEquals("+7 (930", mask.format("930"));
+        assertEquals("9307920000", mask.clear(mask.format(FULL_PHONE)));
+        assertEquals("9307920000", mask.clearStatic(mask.format(FULL_PHONE)));
+    }
+
+    @Test
+    public void test_compiledMaskIsNotAffectedByFormatterChanges() {
+        MaskFormatter formatter = MaskFormatter.get().mask("### ### ###");
+        CompiledMask mask = formatter.build();
+
+        formatter.mask("###-###-###");
+
+        assertEquals("123 456 789", mask.format(SIMPLE_NUMBERS));
+        assertEquals("123-456-789", formatter.format(SIMPLE_NUMBERS));
+    }
+
+    @Test
+    public void test_clearWithLiteralAfterReplacementSequence() {
+        MaskFormatter formatter = MaskFormatter.get().mask("####z");
+
+        assertEquals("1234z", formatter.format("1234"));
+        assertEquals("1234", formatter.clear("1234z"));
+        assertEquals("12", formatter.clear("12"));
+    }
+
+    @Test
+    public void test_clearNotMatchingSource() {
+        MaskFormatter formatter = MaskFormatter.get().mask("### ### ###");
+
+        assertEquals("123456789", formatter.clear("123 456 789"));
+        assertEquals("123-456-789", formatter.clear("123-456-789"));
+    }
+
+    @Test
+    public void test_formatToCharArray() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##")
+                .ignoreInputPrefixes("+7", "7")
+                .maskPrefix("+7 ");
+        char[] destination = new char[32];
+
+        int length = formatter.formatTo(FULL_PHONE, destination, 2);
+
+        assertEquals(18, length);
+        assertEquals("+7 (930) 792-00-00", new String(destination, 2, length));
+        assertEquals(formatter.format("930"), new String(destination, 0, formatter.formatTo("930", destination, 0)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_formatToSmallCharArray() {
+        MaskFormatter.get().mask("### ### ###").formatTo(SIMPLE_NUMBERS, new char[10], 0);
+    }
+
+    @Test
+    public void test_formatToStringBuilder() {
+        MaskFormatter formatter = MaskFormatter.get().mask("## ## ####").strictMask(false);
+        StringBuilder destination = new StringBuilder("> ");
+
+        assertEquals(10, formatter.formatTo("12345678", destination));
+        assertEquals("> 12 34 5678", destination.toString());
+
+        destination.setLength(0);
+        assertEquals(10, formatter.formatTo("1234567890", destination));
+        assertEquals("1234567890", destination.toString());
+    }
+
+    @Test
+    public void test_offsetMaps() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ");
+        // +7 (930) 792-00-00
+        assertEquals(3, formatter.build().getPrefixLength());
+        assertEquals(4, formatter.toFormattedOffset(0));
+        assertEquals(5, formatter.toFormattedOffset(1));
+        assertEquals(7, formatter.toFormattedOffset(3));
+        assertEquals(10, formatter.toFormattedOffset(4));
+        assertEquals(18, formatter.toFormattedOffset(10));
+        assertEquals(18, formatter.toFormattedOffset(20));
+
+        assertEquals(0, formatter.toRawOffset(0));
+        assertEquals(0, formatter.toRawOffset(4));
+        assertEquals(3, formatter.toRawOffset(8));
+        assertEquals(3, formatter.toRawOffset(9));
+        assertEquals(4, formatter.toRawOffset(10));
+        assertEquals(10, formatter.toRawOffset(100));
+
+        for (int raw = 0; raw <= 10; raw++) {
+            assertEquals(raw, formatter.toRawOffset(formatter.toFormattedOffset(raw)));
+        }
+    }
+
+    @Test
+    public void test_completenessChecks() {
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7", "8");
+        assertEquals(0, formatter.filledSlots(null));
+        assertEquals(0, formatter.filledSlots("+7 "));
+        assertEquals(3, formatter.filledSlots("+7 (930"));
+        assertEquals(10, formatter.filledSlots("89307920000"));
+        assertEquals(9, formatter.filledSlots(new StringBuilder("+7 (930) 792-00-0")));
+        assertTrue(formatter.isComplete("+7 (930) 792-00-00"));
+        assertFalse(formatter.isComplete("+7 (930) 792-00"));
+
+        assertEquals(-1, formatter.validate("+7 (930) 792-00-00"));
+        assertEquals(-1, formatter.validate("+7 (930) 7"));
+        assertEquals(-1, formatter.validate("+7"));
+        assertEquals(0, formatter.validate("8 (930)"));
+        assertEquals(6, formatter.validate("+7 (93_) 792-00-00"));
+        assertEquals(18, formatter.validate("+7 (930) 792-00-000"));
+        assertEquals(-1, MaskFormatter.get().mask("## ##").maskPrefix("12").validate("12 34"));
+    }
+
+    @Test
+    public void test_completenessMatchesFormattedText() {
+        MaskFormatter[] formatters = {
+                MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7", "8"),
+                MaskFormatter.get().mask("AA 000000-H*").useStandardSlots(),
+                MaskFormatter.get().mask("#### #### #### ####")
+        };
+        String alphabet = "0123456789abAB +7()-#8";
+        Random random = new Random(42);
+        for (MaskFormatter formatter : formatters) {
+            for (int i = 0; i < 20000; i++) {
+                StringBuilder source = new StringBuilder();
+                for (int j = random.nextInt(24); j > 0; j--) {
+                    source.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                String formatted = formatter.format(formatter.clear(source.toString()));
+                assertEquals(source.toString(), formatter.toRawOffset(formatted.length()), formatter.filledSlots(source));
+                String reformatted = formatter.format(formatter.clear(formatted));
+                assertEquals(formatted, formatter.toRawOffset(reformatted.length()), formatter.filledSlots(formatted));
+                assertEquals(formatted, -1, formatter.validate(formatted));
+            }
+        }
+    }
+}
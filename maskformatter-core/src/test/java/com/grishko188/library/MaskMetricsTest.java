@@ -0,0 +1,102 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MaskMetricsTest {
+
+    @Test
+    public void test_countsEvents() {
+        MaskMetrics metrics = new MaskMetrics();
+        MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ")
+                .ignoreInputPrefixes("+7", "8").strictMask(false).metrics(metrics);
+
+        formatter.format("8930792000");
+        formatter.format("9307920000");
+        formatter.format("930792000011");
+        formatter.clear("+7 (930) 792-00-00");
+        formatter.clear("+7 930 792 00 00!");
+        formatter.clearStatic("+7 (930) 792-00-00");
+        formatter.formatTo("9307920000", new char[32], 0);
+
+        assertEquals(4, metrics.getFormatLatency().getCount());
+        assertEquals(2, metrics.getClearLatency().getCount());
+        assertEquals(1, metrics.getClearStaticLatency().getCount());
+        assertEquals(1, metrics.getPassThroughCount());
+        assertEquals(1, metrics.getClearMismatchCount());
+        assertEquals(4, metrics.getPrefixStripCount());
+        assertEquals(0, metrics.getWatcherSelfChangeCount());
+    }
+
+    @Test
+    public void test_latencyQuantiles() {
+        MaskMetrics.Latency latency = new MaskMetrics().getFormatLatency();
+        assertEquals(0, latency.getQuantileNanos(0.5));
+
+        for (int i = 0; i < 99; i++) {
+            latency.record(100);
+        }
+        latency.record(5000);
+
+        assertEquals(100, latency.getCount());
+        assertEquals(99 * 100 + 5000, latency.getTotalNanos());
+        assertEquals(127, latency.getQuantileNanos(0.5));
+        assertEquals(127, latency.getQuantileNanos(0.99));
+        assertEquals(8191, latency.getQuantileNanos(1));
+    }
+
+    @Test
+    public void test_concurrentRecording() throws InterruptedException {
+        final MaskMetrics metrics = new MaskMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int task = 0; task < 8; task++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        metrics.onPrefixStrip();
+                        metrics.onFormat(i);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80000, metrics.getPrefixStripCount());
+        assertEquals(80000, metrics.getFormatLatency().getCount());
+    }
+
+    @Test
+    public void test_stripesInflateOnlyOnContention() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter(2);
+        for (int i = 0; i < 1000; i++) {
+            counter.increment(0);
+        }
+        assertFalse(counter.isInflated());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int task = 0; task < 8; task++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        counter.add(1, 2);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, counter.sum(0));
+        assertEquals(1600000, counter.sum(1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MaskRangeRegistryTest {
+
+    private final MaskFormatter mDefault = MaskFormatter.get().mask("#### #### #### ####");
+    private final MaskFormatter mAmex = MaskFormatter.get().mask("#### ###### #####");
+    private final MaskFormatter mDiners = MaskFormatter.get().mask("#### ###### ####");
+    private final MaskFormatter mMastercard = MaskFormatter.get().mask("#### #### #### ####");
+    private final MaskFormatter mMaestro = MaskFormatter.get().mask("#### #### #### #### ###");
+
+    private MaskRangeRegistry registry() {
+        return MaskRangeRegistry.get()
+                .defaultFormatter(mDefault)
+                .register("34", mAmex)
+                .register("37", mAmex)
+                .register("300", "305", mDiners)
+                .register("36", mDiners)
+                .register("51", "55", mMastercard)
+                .register("2221", "2720", mMastercard)
+                .register("5018", mMaestro);
+    }
+
+    @Test
+    public void test_findByRange() {
+        MaskRangeRegistry registry = registry();
+
+        assertSame(mAmex, registry.find("3712"));
+        assertSame(mAmex, registry.find("34"));
+        assertSame(mDiners, registry.find("3020 123456 7890"));
+        assertSame(mMastercard, registry.find("52"));
+        assertSame(mMastercard, registry.find("2221 00"));
+        assertSame(mMastercard, registry.find("2720"));
+        assertSame(mDefault, registry.find("2721"));
+        assertSame(mDefault, registry.find("4111"));
+        assertEquals("3712 345678 90123", registry.format("371234567890123"));
+        assertEquals("30201234567890", registry.clear("3020 123456 7890"));
+    }
+
+    @Test
+    public void test_partialDigits() {
+        MaskRangeRegistry registry = registry();
+
+        assertSame(mDefault, registry.find(null));
+        assertSame(mDefault, registry.find(""));
+        assertSame(mDefault, registry.find("3"));
+        assertSame(mDefault, registry.find("30"));
+        assertSame(mDiners, registry.find("303"));
+        assertSame(mDefault, registry.find("27"));
+        assertSame(mMastercard, registry.find("271"));
+        assertSame(mDefault, registry.find("272"));
+        assertSame(mDefault, registry.find("A34"));
+    }
+
+    @Test
+    public void test_narrowestRangeWins() {
+        MaskRangeRegistry registry = registry().register("50", "59", mDiners);
+
+        assertSame(mMaestro, registry.find("5018 1234"));
+        assertSame(mMastercard, registry.find("5212"));
+        assertSame(mDiners, registry.find("58"));
+        assertSame(mDefault, registry.find("5"));
+        assertSame(mDefault, registry.find("501"));
+
+        registry.register("5018", mAmex);
+        assertEquals(8, registry.size());
+        assertSame(mAmex, registry.find("5018"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_invalidRange() {
+        MaskRangeRegistry.get().register("55", "51", mMastercard);
+    }
+}
@@ -0,0 +1,65 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MaskRegistryTest {
+
+    private final MaskFormatter mRussia = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ")
+            .ignoreInputPrefixes("+7", "7");
+    private final MaskFormatter mUkraine = MaskFormatter.get().mask("(##) ###-##-##").maskPrefix("+380 ")
+            .ignoreInputPrefixes("+380", "380");
+    private final MaskFormatter mBelarus = MaskFormatter.get().mask("(##) ###-##-##").maskPrefix("+375 ")
+            .ignoreInputPrefixes("+375", "375");
+
+    private MaskRegistry registry() {
+        return MaskRegistry.get()
+                .register("7", mRussia)
+                .register("380", mUkraine)
+                .register("375", mBelarus);
+    }
+
+    @Test
+    public void test_findByLeadingDigits() {
+        MaskRegistry registry = registry();
+
+        assertSame(mRussia, registry.find("79307920000"));
+        assertSame(mUkraine, registry.find("+380 (93) 123-45-67"));
+        assertSame(mBelarus, registry.find("375"));
+        assertEquals("+380 (93) 123-45-67", registry.format("380931234567"));
+        assertEquals("291234567", registry.clear("+375 (29) 123-45-67"));
+    }
+
+    @Test
+    public void test_defaultFormatter() {
+        MaskRegistry registry = registry();
+
+        assertEquals("38", registry.format("38"));
+        assertEquals(null, registry.format(null));
+
+        MaskFormatter other = MaskFormatter.get().mask("### ### ###");
+        registry.defaultFormatter(other);
+        assertSame(other, registry.find("3"));
+        assertSame(other, registry.find(""));
+    }
+
+    @Test
+    public void test_longestKeyWins() {
+        MaskFormatter kazakhstan = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ");
+        MaskRegistry registry = registry().register("77", kazakhstan);
+
+        assertSame(kazakhstan, registry.find("+7 (701) 000"));
+        assertSame(mRussia, registry.find("+7 (930) 000"));
+
+        registry.register("77", mRussia);
+        assertEquals(4, registry.size());
+        assertSame(mRussia, registry.find("+7 (701) 000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_invalidKey() {
+        MaskRegistry.get().register("+7", mRussia);
+    }
+}
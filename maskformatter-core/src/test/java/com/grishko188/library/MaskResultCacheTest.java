@@ -0,0 +1,98 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MaskResultCacheTest {
+
+    @Test
+    public void test_charSequenceHitsCachedString() {
+        MaskResultCache cache = MaskFormatters.newResultCache(MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").build(), 8);
+
+        String first = cache.format("9307920000");
+        String second = cache.format(new StringBuilder("9307920000"));
+
+        assertSame(first, second);
+        assertEquals("+7 (930) 792-00-00", second);
+        assertEquals("9307920000", cache.clear(first));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void test_eviction() {
+        MaskResultCache cache = MaskFormatters.newResultCache(MaskFormatter.get().mask("##-##").build(), 2);
+
+        String first = cache.format("1234");
+        cache.format("5678");
+        cache.format("1234");
+        cache.format("9012");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.format("1234"));
+    }
+
+    @Test
+    public void test_formatterCache() {
+        MaskFormatter formatter = MaskFormatter.get().mask("## ## ####");
+        assertNull(formatter.getResultCache());
+
+        formatter.cacheResults(16);
+        assertEquals("12 34 5678", formatter.format("12345678"));
+        assertEquals("12 34 5678", formatter.format("12345678"));
+        MaskResultCache cache = formatter.getResultCache();
+        assertEquals(1, cache.getHitCount());
+
+        formatter.strictMask(false);
+        assertNotSame(cache, formatter.getResultCache());
+        assertEquals("1234567890", formatter.format("1234567890"));
+        assertEquals(0, formatter.getResultCache().getHitCount());
+
+        formatter.cacheResults(0);
+        assertNull(formatter.getResultCache());
+    }
+
+    @Test
+    public void test_concurrentFirstCallsShareCache() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int run = 0; run < 100; run++) {
+            final MaskFormatter formatter = MaskFormatter.get().mask("(###) ###-##-##").cacheResults(16);
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(8);
+            for (int task = 0; task < 8; task++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            formatter.format("9307920000");
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            MaskResultCache cache = formatter.getResultCache();
+            assertEquals(8, cache.getHitCount() + cache.getMissCount());
+            assertEquals(1, cache.size());
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,82 @@
+package com.grishko188.library;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class SlotClassTest {
+
+    @Test
+    public void test_accepts() {
+        assertTrue(SlotClass.DIGIT.accepts('7'));
+        assertFalse(SlotClass.DIGIT.accepts('a'));
+        assertTrue(SlotClass.LETTER.accepts('ж'));
+        assertTrue(SlotClass.HEX_DIGIT.accepts('E'));
+        assertFalse(SlotClass.HEX_DIGIT.accepts('x'));
+
+        SlotClass custom = SlotClass.of("XY№").plus(SlotClass.DIGIT);
+        assertTrue(custom.accepts('Y'));
+        assertTrue(custom.accepts('№'));
+        assertTrue(custom.accepts('5'));
+        assertFalse(custom.accepts('Z'));
+        assertEquals(SlotClass.of("YX"), SlotClass.of("XYY"));
+    }
+
+    @Test
+    public void test_formatSkipsRejectedChars() {
+        MaskFormatter formatter = MaskFormatter.get().mask("AA 000000").useStandardSlots();
+
+        assertEquals("AB 123456", formatter.format("AB-123456"));
+        assertEquals("AB 23456", formatter.format("A1B23456"));
+        assertEquals("AB 12", formatter.format("ab-12".toUpperCase()));
+        assertEquals("", formatter.format("123"));
+    }
+
+    @Test
+    public void test_mixedWithReplacementChar() {
+        MaskFormatter formatter = MaskFormatter.get().mask("## HH-HH").slot('H', SlotClass.HEX_DIGIT);
+
+        assertEquals('#', formatter.getReplacementChar());
+        assertEquals("zz 0F-A1", formatter.format("zz0FxA1"));
+        assertEquals("zz0FA1", formatter.clear("zz 0F-A1"));
+        assertEquals("zz 0X-A1", formatter.clear("zz 0X-A1"));
+    }
+
+    @Test
+    public void test_adjacentSlotClasses() {
+        CompiledMask mask = MaskFormatter.get().mask("AAA000").useStandardSlots().build();
+
+        assertEquals(6, mask.getSlotCount());
+        assertEquals(SlotClass.LETTER, mask.getSlotClass(0));
+        assertEquals(SlotClass.DIGIT, mask.getSlotClass(5));
+        assertEquals("ABC123", mask.format("ABC-123"));
+        assertEquals("ABC3", mask.format("A1B2C3"));
+        assertEquals("ABC12", mask.clear("ABC12"));
+        assertTrue(mask.accepts('A'));
+        assertFalse(mask.accepts('-'));
+    }
+
+    @Test
+    public void test_incrementalFormatter() {
+        IncrementalFormatter formatter = new IncrementalFormatter(MaskFormatter.get().mask("AA 0000").useStandardSlots().build());
+
+        formatter.reset("A");
+        formatter.edit("A1", 1, 0, 1);
+        assertEquals("A", formatter.getFormatted().toString());
+        formatter.edit("AB", 1, 0, 1);
+        formatter.edit("AB 1", 3, 0, 1);
+        assertEquals("AB 1", formatter.getFormatted().toString());
+        assertEquals("AB1", formatter.getRaw());
+    }
+
+    @Test
+    public void test_cacheKey() {
+        MaskCache cache = MaskFormatters.newCache(4);
+
+        assertNotSame(cache.get(MaskFormatter.get().mask("00-00")), cache.get(MaskFormatter.get().mask("00-00").useStandardSlots()));
+        assertEquals("12-34", cache.get(MaskFormatter.get().mask("00-00").useStandardSlots()).format("1a234"));
+    }
+}
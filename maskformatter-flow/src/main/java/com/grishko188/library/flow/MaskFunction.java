@@ -0,0 +1,60 @@
+package com.grishko188.library.flow;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatter;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * {@link Function} adaptor of {@link CompiledMask}, for use in streams and reactive pipelines.
+ * <br/>Mask is compiled once, so the function is thread safe and may be shared.
+ * <pre>
+ * {@code
+ * List<String> phones = records.stream().map(MaskFunction.format(formatter)).collect(Collectors.toList());
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ */
+public final class MaskFunction implements Function<CharSequence, String> {
+
+    private final CompiledMask mMask;
+    private final boolean mClear;
+
+    /**
+     * @param clear if true sources are cleared with mask, otherwise formatted
+     */
+    public MaskFunction(CompiledMask mask, boolean clear) {
+        mMask = Objects.requireNonNull(mask);
+        mClear = clear;
+    }
+
+    /**
+     * Returns function, which formats sources like {@link MaskFormatter#format(String)}
+     */
+    public static MaskFunction format(MaskFormatter formatter) {
+        return new MaskFunction(formatter.build(), false);
+    }
+
+    /**
+     * Returns function, which clears sources like {@link MaskFormatter#clear(String)}
+     */
+    public static MaskFunction clear(MaskFormatter formatter) {
+        return new MaskFunction(formatter.build(), true);
+    }
+
+    public CompiledMask getMask() {
+        return mMask;
+    }
+
+    public boolean isClear() {
+        return mClear;
+    }
+
+    @Override
+    public String apply(CharSequence source) {
+        String value = source == null ? null : source.toString();
+        return mClear ? mMask.clear(value) : mMask.format(value);
+    }
+}
@@ -0,0 +1,275 @@
+package com.grishko188.library.flow;
+
+import com.grishko188.library.MaskFormatter;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * {@link Flow.Processor}, which formats or clears items with mask under backpressure.
+ * <br/>Processor requests from upstream no more than {@link #bufferSize(int)} items ahead of downstream,
+ * and requests more only as results are delivered, so slow subscriber slows down the publisher instead of growing queues.
+ * <br/>If {@link #executor(Executor)} is set, items are processed on it in parallel, otherwise on the publisher thread.
+ * Results are always delivered in the order of items.
+ * Errors of upstream or of the function are delivered immediately, results which are not delivered yet are dropped.
+ * <pre>
+ * {@code
+ * MaskProcessor processor = MaskProcessor.format(formatter).executor(executor).bufferSize(1024);
+ * publisher.subscribe(processor);
+ * processor.subscribe(writer);
+ * }
+ * </pre>
+ * Configure processor before subscribing it. Processor supports one subscriber and is subscribed to one publisher.
+ *
+ * @author Grishko Nikita
+ */
+public final class MaskProcessor implements Flow.Processor<CharSequence, String> {
+
+    private final Function<? super CharSequence, String> mFunction;
+    private Executor mExecutor;
+    private int mBufferSize = Flow.defaultBufferSize();
+
+    private volatile Flow.Subscription mUpstream;
+    private volatile Flow.Subscriber<? super String> mDownstream;
+    private final AtomicBoolean mIsSubscribed = new AtomicBoolean();
+
+    /**
+     * Ring of results, slot of item is its index modulo buffer size. Empty slot means result is not ready yet
+     */
+    private volatile AtomicReferenceArray<String> mResults;
+    private int mReplenishLimit;
+
+    /**
+     * Count of items received from upstream, written by upstream thread only
+     */
+    private volatile long mReceived;
+    private volatile boolean mIsDone;
+    private volatile boolean mIsCancelled;
+    private final AtomicReference<Throwable> mError = new AtomicReference<>();
+
+    private final AtomicLong mRequested = new AtomicLong();
+    private final AtomicInteger mDrainRequests = new AtomicInteger();
+
+    // fields below are accessed by drain loop only
+    private long mEmitted;
+    private int mConsumed;
+    private boolean mIsTerminated;
+
+    public MaskProcessor(Function<? super CharSequence, String> function) {
+        mFunction = Objects.requireNonNull(function);
+    }
+
+    /**
+     * Returns processor, which formats items like {@link MaskFormatter#format(String)}
+     */
+    public static MaskProcessor format(MaskFormatter formatter) {
+        return new MaskProcessor(MaskFunction.format(formatter));
+    }
+
+    /**
+     * Returns processor, which clears items like {@link MaskFormatter#clear(String)}
+     */
+    public static MaskProcessor clear(MaskFormatter formatter) {
+        return new MaskProcessor(MaskFunction.clear(formatter));
+    }
+
+    /**
+     * Set executor to process items in parallel. Count of items in flight is limited by buffer size.
+     * By default items are processed on the publisher thread.
+     */
+    public MaskProcessor executor(Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Set count of items requested from upstream ahead of downstream. By default {@link Flow#defaultBufferSize()}
+     */
+    public MaskProcessor bufferSize(int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        mBufferSize = bufferSize;
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!mIsSubscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("MaskProcessor supports only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested count must be positive: " + n));
+                    return;
+                }
+                long current;
+                do {
+                    current = mRequested.get();
+                } while (!mRequested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                mIsCancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        mDownstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        if (mUpstream != null || mIsCancelled) {
+            subscription.cancel();
+            return;
+        }
+        mResults = new AtomicReferenceArray<>(mBufferSize);
+        mReplenishLimit = Math.max(1, mBufferSize / 2);
+        mUpstream = subscription;
+        subscription.request(mBufferSize);
+    }
+
+    @Override
+    public void onNext(CharSequence item) {
+        Objects.requireNonNull(item);
+        if (mIsDone || mIsCancelled)
+            return;
+        long index = mReceived;
+        mReceived = index + 1;
+        int slot = (int) (index % mResults.length());
+        if (mExecutor == null) {
+            process(item, slot);
+            return;
+        }
+        try {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    process(item, slot);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        mError.compareAndSet(null, throwable);
+        mIsDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        mIsDone = true;
+        drain();
+    }
+
+    private void process(CharSequence item, int slot) {
+        String result;
+        try {
+            result = Objects.requireNonNull(mFunction.apply(item), "Function returned null");
+        } catch (Throwable e) {
+            fail(e);
+            return;
+        }
+        mResults.set(slot, result);
+        drain();
+    }
+
+    private void fail(Throwable throwable) {
+        mError.compareAndSet(null, throwable);
+        cancelUpstream();
+        drain();
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription upstream = mUpstream;
+        if (upstream != null)
+            upstream.cancel();
+    }
+
+    /**
+     * Delivers ready results, completion and errors to downstream.
+     * Any thread may call it, the loop is run by one thread at a time, other callers only make it run once more
+     */
+    private void drain() {
+        if (mDrainRequests.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super String> downstream = mDownstream;
+            if (downstream != null && !mIsTerminated) {
+                emit(downstream);
+            }
+            missed = mDrainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit(Flow.Subscriber<? super String> downstream) {
+        if (mIsCancelled) {
+            mIsTerminated = true;
+            return;
+        }
+        Throwable error = mError.get();
+        if (error != null) {
+            mIsTerminated = true;
+            cancelUpstream();
+            downstream.onError(error);
+            return;
+        }
+        boolean isDone = mIsDone;
+        AtomicReferenceArray<String> results = mResults;
+        if (results != null) {
+            long requested = mRequested.get();
+            long emitted = 0;
+            while (emitted != requested && !mIsCancelled && mError.get() == null) {
+                int slot = (int) (mEmitted % results.length());
+                String result = results.get(slot);
+                if (result == null)
+                    break;
+                results.lazySet(slot, null);
+                mEmitted++;
+                emitted++;
+                downstream.onNext(result);
+                if (++mConsumed == mReplenishLimit) {
+                    mConsumed = 0;
+                    mUpstream.request(mReplenishLimit);
+                }
+            }
+            if (emitted != 0 && requested != Long.MAX_VALUE)
+                mRequested.addAndGet(-emitted);
+        }
+        if (isDone && !mIsCancelled && mError.get() == null && mEmitted == mReceived) {
+            mIsTerminated = true;
+            downstream.onComplete();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.grishko188.library.flow;
+
+import com.grishko188.library.MaskFormatter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MaskProcessorTest {
+
+    private static final MaskFormatter PHONE = MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ")
+            .ignoreInputPrefixes("+7", "8");
+
+    /**
+     * Subscriber, which requests items one by one and records them
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<String> {
+
+        final List<String> mItems = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch mDone = new CountDownLatch(1);
+        volatile Throwable mError;
+        Flow.Subscription mSubscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            mSubscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(String item) {
+            mItems.add(item);
+            mSubscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            mError = throwable;
+            mDone.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            mDone.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(mDone.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void test_function() {
+        assertEquals("+7 (930) 792-00-00", MaskFunction.format(PHONE).apply("89307920000"));
+        assertEquals("9307920000", MaskFunction.clear(PHONE).apply(new StringBuilder("+7 (930) 792-00-00")));
+    }
+
+    @Test
+    public void test_parallelKeepsOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        MaskProcessor processor = MaskProcessor.format(PHONE).executor(executor).bufferSize(16);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        processor.subscribe(subscriber);
+
+        List<String> expected = new ArrayList<>();
+        try (SubmissionPublisher<CharSequence> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 5000; i++) {
+                String phone = String.valueOf(89300000000L + i);
+                expected.add(PHONE.format(phone));
+                publisher.submit(phone);
+            }
+        }
+        subscriber.await();
+        executor.shutdown();
+
+        assertNull(subscriber.mError);
+        assertEquals(expected, subscriber.mItems);
+    }
+
+    @Test
+    public void test_backpressure() {
+        AtomicInteger requested = new AtomicInteger();
+        MaskProcessor processor = MaskProcessor.clear(PHONE).bufferSize(4);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                requested.addAndGet((int) n);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        assertEquals(4, requested.get());
+
+        List<String> items = new ArrayList<>();
+        Flow.Subscription[] downstream = new Flow.Subscription[1];
+        processor.subscribe(new Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                downstream[0] = subscription;
+            }
+
+            @Override
+            public void onNext(String item) {
+                items.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        for (int i = 0; i < 4; i++) {
+            processor.onNext("+7 (930) 792-00-0" + i);
+        }
+        assertEquals(0, items.size());
+        assertEquals(4, requested.get());
+
+        downstream[0].request(3);
+        assertEquals(Arrays.asList("9307920000", "9307920001", "9307920002"), items);
+        assertEquals(6, requested.get());
+    }
+
+    @Test
+    public void test_functionError() throws InterruptedException {
+        MaskProcessor processor = new MaskProcessor(source -> {
+            if (source.length() == 0)
+                throw new IllegalArgumentException("empty");
+            return source.toString();
+        });
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        processor.subscribe(subscriber);
+        try (SubmissionPublisher<CharSequence> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            publisher.submit("a");
+            publisher.submit("");
+            publisher.submit("b");
+        }
+        subscriber.await();
+
+        assertTrue(subscriber.mError instanceof IllegalArgumentException);
+        assertEquals(Collections.singletonList("a"), subscriber.mItems);
+    }
+}
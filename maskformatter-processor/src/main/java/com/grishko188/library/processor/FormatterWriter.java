@@ -0,0 +1,443 @@
+package com.grishko188.library.processor;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.SlotClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes Java source of formatter class for compiled mask.
+ * <br/>Mask is analyzed by {@link CompiledMask} at compile time, so generated code behaves exactly like it.
+ * Formatting is unrolled into straight-line code for every slot, clearing walks precomputed element tables.
+ * Generated source is Java 7 compatible, so it can be used on Android.
+ *
+ * @author Grishko Nikita
+ */
+final class FormatterWriter {
+
+    private static final SlotClass[] STANDARD_CLASSES = {
+            SlotClass.LETTER_OR_DIGIT, SlotClass.DIGIT, SlotClass.LETTER, SlotClass.HEX_DIGIT};
+    private static final String[] STANDARD_CLASS_NAMES = {
+            "SlotClass.LETTER_OR_DIGIT", "SlotClass.DIGIT", "SlotClass.LETTER", "SlotClass.HEX_DIGIT"};
+
+    private final CompiledMask mMask;
+    private final String[] mIgnorePrefixes;
+    private final String mPackageName;
+    private final String mClassName;
+    private final String mSourceName;
+
+    private final char[] mMaskChars;
+    private final String mMaskPrefix;
+    private final int mPrefixLength;
+    private final int[] mSlotPositions;
+    /**
+     * Slot class constant of every mask position, null for literals
+     */
+    private final String[] mPositionClasses;
+
+    private final StringBuilder mOut = new StringBuilder();
+
+    /**
+     * @param ignorePrefixes ignored input prefixes of the mask
+     * @param sourceName     name of annotated constant for generated docs
+     */
+    FormatterWriter(CompiledMask mask, String[] ignorePrefixes, String packageName, String className, String sourceName) {
+        mMask = mask;
+        mIgnorePrefixes = ignorePrefixes;
+        mPackageName = packageName;
+        mClassName = className;
+        mSourceName = sourceName;
+
+        mMaskChars = mask.getMask().toCharArray();
+        mMaskPrefix = mask.getMaskPrefix();
+        mPrefixLength = mask.getPrefixLength();
+        mSlotPositions = new int[mask.getSlotCount()];
+        mPositionClasses = new String[mMaskChars.length];
+        for (int slot = 0; slot < mSlotPositions.length; slot++) {
+            mSlotPositions[slot] = mask.toFormattedOffset(slot + 1) - mPrefixLength - 1;
+            mPositionClasses[mSlotPositions[slot]] = className(mask.getSlotClass(slot));
+        }
+    }
+
+    private static String className(SlotClass slotClass) {
+        for (int i = 0; i < STANDARD_CLASSES.length; i++) {
+            if (STANDARD_CLASSES[i].equals(slotClass))
+                return STANDARD_CLASS_NAMES[i];
+        }
+        throw new IllegalArgumentException("Only standard slot classes are supported: " + slotClass);
+    }
+
+    String write() {
+        if (!mPackageName.isEmpty())
+            line("package " + mPackageName + ";").line();
+        line("import com.grishko188.library.SlotClass;");
+        line("import com.grishko188.library.TextFormatter;").line();
+        line("/**");
+        line(" * Formatter of mask constant {@code " + mSourceName + "}.");
+        line(" * <br/>Formats and clears exactly like {@code CompiledMask} with the same configuration. Do not edit.");
+        line(" */");
+        line("public final class " + mClassName + " implements TextFormatter {").line();
+        writeConstants();
+        writeGetters();
+        writeFormat();
+        writeClear();
+        writeOffsets();
+        writeHelpers();
+        line("}");
+        return mOut.toString();
+    }
+
+    private void writeConstants() {
+        line("    public static final " + mClassName + " INSTANCE = new " + mClassName + "();").line();
+        line("    public static final String MASK = " + literal(mMask.getMask()) + ";");
+        line("    public static final String MASK_PREFIX = " + literal(mMaskPrefix) + ";");
+        line("    public static final int SLOT_COUNT = " + mSlotPositions.length + ";").line();
+        line("    /**");
+        line("     * Prepended mask prefix and mask literals, slots are overwritten while formatting");
+        line("     */");
+        StringBuilder template = new StringBuilder();
+        if (mPrefixLength > 0)
+            template.append(mMaskPrefix);
+        template.append(mMaskChars);
+        line("    private static final char[] TEMPLATE = " + literal(template.toString()) + ".toCharArray();");
+
+        int[] rawToFormatted = new int[mSlotPositions.length + 1];
+        for (int raw = 0; raw < rawToFormatted.length; raw++) {
+            rawToFormatted[raw] = mMask.toFormattedOffset(raw) - mPrefixLength;
+        }
+        int[] slotsBefore = new int[mMaskChars.length + 1];
+        for (int i = 0; i < slotsBefore.length; i++) {
+            slotsBefore[i] = mMask.toRawOffset(mPrefixLength + i);
+        }
+        line("    private static final int[] RAW_TO_FORMATTED = " + literal(rawToFormatted) + ";");
+        line("    private static final int[] SLOTS_BEFORE = " + literal(slotsBefore) + ";").line();
+
+        List<Character> elementChars = new ArrayList<>();
+        List<Integer> elementSlots = new ArrayList<>();
+        List<String> elementClasses = new ArrayList<>();
+        for (int i = 0; i < mMaskChars.length; i++) {
+            String slotClass = mPositionClasses[i];
+            if (slotClass != null && i > 0 && slotClass.equals(mPositionClasses[i - 1])) {
+                elementSlots.set(elementSlots.size() - 1, elementSlots.get(elementSlots.size() - 1) + 1);
+                continue;
+            }
+            elementChars.add(mMaskChars[i]);
+            elementSlots.add(slotClass == null ? 0 : 1);
+            elementClasses.add(slotClass);
+        }
+        line("    /**");
+        line("     * Mask split into clear elements: literal chars and sequences of slots with the same class");
+        line("     */");
+        StringBuilder chars = new StringBuilder();
+        StringBuilder slots = new StringBuilder();
+        StringBuilder classes = new StringBuilder();
+        for (int i = 0; i < elementChars.size(); i++) {
+            String separator = i == 0 ? "" : ", ";
+            chars.append(separator).append(literal(elementChars.get(i)));
+            slots.append(separator).append(elementSlots.get(i));
+            classes.append(separator).append(elementClasses.get(i));
+        }
+        line("    private static final char[] ELEMENT_CHARS = {" + chars + "};");
+        line("    private static final int[] ELEMENT_SLOTS = {" + slots + "};");
+        line("    private static final SlotClass[] ELEMENT_CLASSES = {" + classes + "};").line();
+    }
+
+    private void writeGetters() {
+        line("    public String getMask() {");
+        line("        return MASK;");
+        line("    }").line();
+        line("    public String getMaskPrefix() {");
+        line("        return MASK_PREFIX;");
+        line("    }").line();
+        line("    public boolean isPrefixNecessarily() {");
+        line("        return " + mMask.isPrefixNecessarily() + ";");
+        line("    }").line();
+        line("    public boolean isMaskStrict() {");
+        line("        return " + mMask.isMaskStrict() + ";");
+        line("    }").line();
+        line("    public int getSlotCount() {");
+        line("        return SLOT_COUNT;");
+        line("    }").line();
+
+        Set<String> acceptedClasses = new LinkedHashSet<>();
+        for (String slotClass : mPositionClasses) {
+            if (slotClass != null)
+                acceptedClasses.add(slotClass);
+        }
+        if (acceptedClasses.isEmpty())
+            acceptedClasses.add(STANDARD_CLASS_NAMES[0]);
+        StringBuilder accepts = new StringBuilder();
+        for (String slotClass : acceptedClasses) {
+            if (accepts.length() > 0)
+                accepts.append(" || ");
+            accepts.append(slotClass).append(".accepts(symbol)");
+        }
+        line("    public boolean accepts(char symbol) {");
+        line("        return " + accepts + ";");
+        line("    }").line();
+    }
+
+    private void writeFormat() {
+        line("    public String format(String source) {");
+        if (mMaskChars.length == 0) {
+            line("        return source;");
+            line("    }").line();
+            return;
+        }
+        line("        if (source == null || source.length() == 0)");
+        line("            return " + (mMask.isPrefixNecessarily() ? "MASK_PREFIX" : "source") + ";");
+        if (!mMask.isMaskStrict()) {
+            line("        if (source.length() > SLOT_COUNT)");
+            line("            return source;");
+        }
+        line();
+        line("        int length = source.length();");
+        line("        int index = " + (ignorePrefixes().isEmpty() ? "0" : "ignoredPrefixLength(source)") + ";");
+        line("        char[] result = TEMPLATE.clone();");
+        for (int slot = 0; slot < mSlotPositions.length; slot++) {
+            int position = mSlotPositions[slot];
+            line();
+            line("        index = nextAccepted(source, index, length, " + mPositionClasses[position] + ");");
+            line("        if (index == length)");
+            line("            return result(result, " + formattedLength(slot) + ");");
+            line("        result[" + (mPrefixLength + position) + "] = source.charAt(index++);");
+        }
+        line("        return result(result, " + mMaskChars.length + ");");
+        line("    }").line();
+
+        line("    /**");
+        line("     * Returns formatted text of given mask part length, with mask prefix unless the mask part already starts with it");
+        line("     */");
+        line("    private static String result(char[] result, int resultLength) {");
+        String startsWithPrefix = startsWithPrefixCondition();
+        if (mPrefixLength == 0) {
+            line("        return new String(result, 0, resultLength);");
+        } else if (startsWithPrefix == null) {
+            line("        return new String(result, 0, " + mPrefixLength + " + resultLength);");
+        } else {
+            line("        if (resultLength >= " + mPrefixLength + startsWithPrefix + ")");
+            line("            return new String(result, " + mPrefixLength + ", resultLength);");
+            line("        return new String(result, 0, " + mPrefixLength + " + resultLength);");
+        }
+        line("    }").line();
+    }
+
+    /**
+     * Returns length of formatted mask part, when given count of slots is filled
+     */
+    private int formattedLength(int filledSlots) {
+        if (filledSlots == mSlotPositions.length)
+            return mMaskChars.length;
+        if (filledSlots == 0)
+            return 0;
+        return mSlotPositions[filledSlots - 1] + 1;
+    }
+
+    /**
+     * Returns conditions on slot chars, which make formatted mask part start with prepended prefix,
+     * or null if it is impossible
+     */
+    private String startsWithPrefixCondition() {
+        if (mPrefixLength == 0 || mPrefixLength > mMaskChars.length)
+            return null;
+        StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < mPrefixLength; i++) {
+            char prefixChar = mMaskPrefix.charAt(i);
+            if (mPositionClasses[i] == null) {
+                if (mMaskChars[i] != prefixChar)
+                    return null;
+            } else {
+                if (!mMask.getSlotClass(mMask.toRawOffset(mPrefixLength + i)).accepts(prefixChar))
+                    return null;
+                condition.append(" && result[").append(mPrefixLength + i).append("] == ").append(literal(prefixChar));
+            }
+        }
+        return condition.toString();
+    }
+
+    private void writeClear() {
+        line("    public String clear(String source) {");
+        if (mMaskChars.length == 0) {
+            line("        return source;");
+            line("    }").line();
+            return;
+        }
+        line("        if (source == null || source.length() == 0)");
+        line("            return source;").line();
+        line("        int from = " + (mMaskPrefix == null ? "0" : "clearedPrefixLength(source)") + ";");
+        line("        char[] result = new char[source.length() - from];");
+        line("        int resultLength = clearTo(source, from, result);");
+        line("        return resultLength < 0 ? source.substring(from) : new String(result, 0, resultLength);");
+        line("    }").line();
+
+        line("    /**");
+        line("     * Walks the source against mask elements and copies chars placed in slots to the result");
+        line("     *");
+        line("     * @return count of chars written to result, or -1 if source does not match the mask");
+        line("     */");
+        line("    private static int clearTo(String source, int from, char[] result) {");
+        line("        int element = 0;");
+        line("        int filled = 0;");
+        line("        int resultLength = 0;");
+        line("        for (int i = from, length = source.length(); i < length; i++) {");
+        line("            char symbol = source.charAt(i);");
+        line("            SlotClass slotClass = ELEMENT_CLASSES[element];").line();
+        line("            int next = element;");
+        line("            if (slotClass == null) {");
+        line("                if (ELEMENT_CHARS[element] != symbol)");
+        line("                    next = findElement(element + 1, symbol);");
+        line("            } else if (!slotClass.accepts(symbol)) {");
+        line("                next = findElement(element + 1, symbol);");
+        line("            } else if (filled >= ELEMENT_SLOTS[element] && element + 1 < ELEMENT_SLOTS.length");
+        line("                    && ELEMENT_CLASSES[element + 1] == null && ELEMENT_CHARS[element + 1] == symbol) {");
+        line("                next = element + 1;");
+        line("            }").line();
+        line("            if (next < 0)");
+        line("                return -1;");
+        line("            if (next != element) {");
+        line("                element = next;");
+        line("                filled = 0;");
+        line("            }");
+        line("            if (ELEMENT_SLOTS[element] > 0) {");
+        line("                result[resultLength++] = symbol;");
+        line("                filled++;");
+        line("            }");
+        line("        }");
+        line("        return resultLength;");
+        line("    }").line();
+
+        line("    private static int findElement(int from, char symbol) {");
+        line("        for (int element = from; element < ELEMENT_SLOTS.length; element++) {");
+        line("            SlotClass slotClass = ELEMENT_CLASSES[element];");
+        line("            if (slotClass == null ? ELEMENT_CHARS[element] == symbol : slotClass.accepts(symbol))");
+        line("                return element;");
+        line("        }");
+        line("        return -1;");
+        line("    }").line();
+
+        if (mMaskPrefix != null) {
+            line("    private static int clearedPrefixLength(String source) {");
+            line("        if (source.length() < MASK_PREFIX.length() && MASK_PREFIX.startsWith(source))");
+            line("            return source.length();");
+            line("        if (source.startsWith(MASK_PREFIX))");
+            line("            return MASK_PREFIX.length();");
+            line("        return 0;");
+            line("    }").line();
+        }
+    }
+
+    private void writeOffsets() {
+        line("    public int toFormattedOffset(int rawOffset) {");
+        line("        return " + mPrefixLength + " + RAW_TO_FORMATTED[Math.max(0, Math.min(rawOffset, SLOT_COUNT))];");
+        line("    }").line();
+        line("    public int toRawOffset(int formattedOffset) {");
+        line("        return SLOTS_BEFORE[Math.max(0, Math.min(formattedOffset - " + mPrefixLength + ", " + mMaskChars.length + "))];");
+        line("    }").line();
+    }
+
+    private void writeHelpers() {
+        List<String> prefixes = ignorePrefixes();
+        if (!prefixes.isEmpty()) {
+            line("    /**");
+            line("     * Returns length of the longest ignored input prefix, which the source starts with");
+            line("     */");
+            line("    private static int ignoredPrefixLength(String source) {");
+            for (String prefix : prefixes) {
+                line("        if (source.startsWith(" + literal(prefix) + "))");
+                line("            return " + prefix.length() + ";");
+            }
+            line("        return 0;");
+            line("    }").line();
+        }
+        line("    /**");
+        line("     * Returns index of the first char accepted by slot class starting from given index, or length if there is no such char");
+        line("     */");
+        line("    private static int nextAccepted(String source, int index, int length, SlotClass slotClass) {");
+        line("        while (index < length && !slotClass.accepts(source.charAt(index))) {");
+        line("            index++;");
+        line("        }");
+        line("        return index;");
+        line("    }");
+    }
+
+    /**
+     * Returns distinct non-empty ignored input prefixes, the longest first
+     */
+    private List<String> ignorePrefixes() {
+        Set<String> prefixes = new LinkedHashSet<>();
+        if (mIgnorePrefixes != null) {
+            for (String prefix : mIgnorePrefixes) {
+                if (prefix != null && !prefix.isEmpty())
+                    prefixes.add(prefix);
+            }
+        }
+        List<String> sorted = new ArrayList<>(prefixes);
+        Collections.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return second.length() - first.length();
+            }
+        });
+        return sorted;
+    }
+
+    private FormatterWriter line(String line) {
+        mOut.append(line).append('\n');
+        return this;
+    }
+
+    private FormatterWriter line() {
+        mOut.append('\n');
+        return this;
+    }
+
+    static String literal(String value) {
+        if (value == null)
+            return "null";
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            literal.append(symbol == '\'' ? "'" : escape(symbol));
+        }
+        return literal.append('"').toString();
+    }
+
+    static String literal(char value) {
+        return "'" + (value == '"' ? "\"" : escape(value)) + "'";
+    }
+
+    private static String literal(int[] values) {
+        String array = Arrays.toString(values);
+        return "{" + array.substring(1, array.length() - 1) + "}";
+    }
+
+    private static String escape(char symbol) {
+        switch (symbol) {
+            case '\\':
+                return "\\\\";
+            case '"':
+                return "\\\"";
+            case '\'':
+                return "\\'";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            default:
+                // unicode escapes are translated before parsing, so line terminators can not be written with them
+                if (symbol < 0x20)
+                    return String.format("\\%03o", (int) symbol);
+                if (symbol > 0x7e)
+                    return String.format("\\u%04x", (int) symbol);
+                return String.valueOf(symbol);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.grishko188.library.processor;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.Mask;
+import com.grishko188.library.MaskFormatter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates formatter class for every string constant annotated with {@link Mask}.
+ * <br/>Add the module as annotation processor of the module with masks:
+ * <pre>
+ * {@code
+ * dependencies {
+ *     annotationProcessor project(':maskformatter-processor')
+ * }
+ * }
+ * </pre>
+ *
+ * @author Grishko Nikita
+ * @see FormatterWriter
+ */
+public final class MaskAnnotationProcessor extends AbstractProcessor {
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(Mask.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Mask.class)) {
+            try {
+                generate(element);
+            } catch (IllegalArgumentException e) {
+                error(element, e.getMessage());
+            } catch (IOException e) {
+                error(element, "Can not write formatter: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(Element element) throws IOException {
+        Object value = element instanceof VariableElement ? ((VariableElement) element).getConstantValue() : null;
+        if (element.getKind() != ElementKind.FIELD || !element.getModifiers().contains(Modifier.STATIC) || !(value instanceof String))
+            throw new IllegalArgumentException("@Mask must annotate static final String constant");
+
+        Mask annotation = element.getAnnotation(Mask.class);
+        if (!SourceVersion.isIdentifier(annotation.value()) || SourceVersion.isKeyword(annotation.value()))
+            throw new IllegalArgumentException("Invalid formatter class name: " + annotation.value());
+
+        MaskFormatter formatter = MaskFormatter.get()
+                .mask((String) value)
+                .symbol(annotation.symbol())
+                .useMaskPrefixNecessarily(annotation.prefixNecessarily())
+                .ignoreInputPrefixes(annotation.ignoreInputPrefixes())
+                .strictMask(annotation.strict());
+        if (!annotation.prefix().isEmpty())
+            formatter.maskPrefix(annotation.prefix());
+        if (annotation.standardSlots())
+            formatter.useStandardSlots();
+        CompiledMask mask = formatter.build();
+
+        Element type = element.getEnclosingElement();
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String className = annotation.value();
+        String sourceName = type.getSimpleName() + "." + element.getSimpleName();
+
+        String source = new FormatterWriter(mask, annotation.ignoreInputPrefixes(), packageName, className, sourceName).write();
+        JavaFileObject file = processingEnv.getFiler()
+                .createSourceFile(packageName.isEmpty() ? className : packageName + "." + className, element);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
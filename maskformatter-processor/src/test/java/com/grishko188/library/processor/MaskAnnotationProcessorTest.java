@@ -0,0 +1,146 @@
+package com.grishko188.library.processor;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatter;
+import com.grishko188.library.TextFormatter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class MaskAnnotationProcessorTest {
+
+    private static final String MASKS = "package com.example;\n"
+            + "\n"
+            + "import com.grishko188.library.Mask;\n"
+            + "\n"
+            + "public final class Masks {\n"
+            + "    @Mask(value = \"PhoneMask\", prefix = \"+7 \", ignoreInputPrefixes = {\"+7\", \"7\", \"8\"})\n"
+            + "    public static final String PHONE = \"(###) ###-##-##\";\n"
+            + "    @Mask(value = \"CardMask\", strict = false)\n"
+            + "    public static final String CARD = \"#### #### #### ####\";\n"
+            + "    @Mask(value = \"PassportMask\", standardSlots = true, prefix = \"AB\", prefixNecessarily = true)\n"
+            + "    public static final String PASSPORT = \"AA 000000-H*\";\n"
+            + "    @Mask(value = \"CodeMask\", symbol = '_', prefix = \"\\\"\")\n"
+            + "    public static final String CODE = \"\\\\__\\\"__\\n\";\n"
+            + "    @Mask(value = \"SamePrefixMask\", prefix = \"12\")\n"
+            + "    public static final String SAME_PREFIX = \"## ##\";\n"
+            + "}\n";
+
+    private static final MaskFormatter[] FORMATTERS = {
+            MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ").ignoreInputPrefixes("+7", "7", "8"),
+            MaskFormatter.get().mask("#### #### #### ####").strictMask(false),
+            MaskFormatter.get().mask("AA 000000-H*").useStandardSlots().maskPrefix("AB").useMaskPrefixNecessarily(true),
+            MaskFormatter.get().mask("\\__\"__\n").symbol('_').maskPrefix("\""),
+            MaskFormatter.get().mask("## ##").maskPrefix("12")
+    };
+    private static final String[] CLASS_NAMES = {"PhoneMask", "CardMask", "PassportMask", "CodeMask", "SamePrefixMask"};
+
+    private static final String ALPHABET = "0123456789abcdefABXZ +7()-_\"\\\n#8Жж1212";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private ClassLoader compile(String source) throws IOException {
+        File sources = mFolder.newFolder();
+        File classes = mFolder.newFolder();
+        File file = new File(sources, "Masks.java");
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        StringWriter output = new StringWriter();
+        JavaCompiler.CompilationTask task = compiler.getTask(output, fileManager, null,
+                Arrays.asList("-d", classes.getPath(), "-s", sources.getPath(), "-classpath", System.getProperty("java.class.path")),
+                null, fileManager.getJavaFileObjectsFromFiles(Collections.singletonList(file)));
+        task.setProcessors(Collections.singletonList(new MaskAnnotationProcessor()));
+        boolean isCompiled = task.call();
+        fileManager.close();
+        assertTrue(output.toString(), isCompiled);
+        return new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    @Test
+    public void test_generatedFormattersMatchCompiledMask() throws Exception {
+        ClassLoader loader = compile(MASKS);
+        Random random = new Random(42);
+        for (int i = 0; i < FORMATTERS.length; i++) {
+            CompiledMask expected = FORMATTERS[i].build();
+            TextFormatter actual = (TextFormatter) loader.loadClass("com.example." + CLASS_NAMES[i]).getField("INSTANCE").get(null);
+
+            assertEquals(expected.getMask(), actual.getMask());
+            assertEquals(expected.getMaskPrefix(), actual.getMaskPrefix());
+            assertEquals(expected.isPrefixNecessarily(), actual.isPrefixNecessarily());
+            assertEquals(expected.isMaskStrict(), actual.isMaskStrict());
+            assertEquals(expected.getSlotCount(), actual.getSlotCount());
+            for (int offset = -1; offset < 30; offset++) {
+                assertEquals(expected.toFormattedOffset(offset), actual.toFormattedOffset(offset));
+                assertEquals(expected.toRawOffset(offset), actual.toRawOffset(offset));
+            }
+            for (int j = 0; j < ALPHABET.length(); j++) {
+                assertEquals(expected.accepts(ALPHABET.charAt(j)), actual.accepts(ALPHABET.charAt(j)));
+            }
+            assertEquals(expected.format(null), actual.format(null));
+            assertEquals(expected.clear(null), actual.clear(null));
+
+            for (int j = 0; j < 20000; j++) {
+                String source = randomSource(random);
+                assertEquals(source, expected.format(source), actual.format(source));
+                assertEquals(source, expected.clear(source), actual.clear(source));
+                String formatted = expected.format(source);
+                assertEquals(formatted, expected.clear(formatted), actual.clear(formatted));
+            }
+        }
+    }
+
+    private static String randomSource(Random random) {
+        StringBuilder source = new StringBuilder();
+        for (int i = random.nextInt(24); i > 0; i--) {
+            source.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return source.toString();
+    }
+
+    @Test
+    public void test_phoneMask() throws Exception {
+        TextFormatter phone = (TextFormatter) compile(MASKS).loadClass("com.example.PhoneMask").getField("INSTANCE").get(null);
+        assertEquals("+7 (930) 792-00-00", phone.format("89307920000"));
+        assertEquals("9307920000", phone.clear("+7 (930) 792-00-00"));
+    }
+
+    @Test
+    public void test_notConstantIsRejected() throws IOException {
+        String source = "package com.example;\n"
+                + "public final class Masks {\n"
+                + "    @com.grishko188.library.Mask(\"PhoneMask\")\n"
+                + "    public final String phone = new String(\"###\");\n"
+                + "}\n";
+        AssertionError error = null;
+        try {
+            compile(source);
+        } catch (AssertionError e) {
+            error = e;
+        }
+        assertNotNull("Compilation must fail", error);
+        assertTrue(error.getMessage(), error.getMessage().contains("@Mask must annotate static final String constant"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.grishko188.library.vector;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures clearing of formatted digit-only values by the scalar engine of {@link CompiledMask} against vector {@link DigitClear}.
+ */
+@State(Scope.Thread)
+public class DigitClearBenchmark {
+
+    @Param({"PHONE", "LONG"})
+    public String maskType;
+
+    private CompiledMask mMask;
+    private DigitClear mClear;
+    private String mSource;
+    private char[] mChars;
+    private byte[] mBytes;
+    private char[] mCharDestination;
+    private byte[] mByteDestination;
+
+    @Setup
+    public void setUp() {
+        MaskFormatter formatter = "PHONE".equals(maskType)
+                ? MaskFormatter.get().mask("(000) 000-00-00").useStandardSlots().maskPrefix("+7 ")
+                : MaskFormatter.get().mask("0000000000000000000000000000000000000000 0000000000000000000000000000000000000000").useStandardSlots();
+        mMask = formatter.build();
+        mClear = new DigitClear(mMask);
+        if (!mClear.isVectorized())
+            throw new IllegalStateException("Run with --add-modules jdk.incubator.vector");
+
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < mMask.getSlotCount(); i++) {
+            digits.append((char) ('0' + i * 7 % 10));
+        }
+        mSource = mMask.format(digits.toString());
+        mChars = mSource.toCharArray();
+        mBytes = mSource.getBytes(StandardCharsets.ISO_8859_1);
+        mCharDestination = new char[mChars.length];
+        mByteDestination = new byte[mBytes.length];
+    }
+
+    @Benchmark
+    public String maskClear() {
+        return mMask.clear(mSource);
+    }
+
+    @Benchmark
+    public String vectorClear() {
+        return mClear.clear(mSource);
+    }
+
+    @Benchmark
+    public int maskClearTo() {
+        return mMask.clearTo(CharBuffer.wrap(mChars), mCharDestination, 0);
+    }
+
+    @Benchmark
+    public int vectorClearTo() {
+        return mClear.clearTo(mChars, 0, mChars.length, mCharDestination, 0);
+    }
+
+    @Benchmark
+    public int vectorClearBytes() {
+        return mClear.clearTo(mBytes, 0, mBytes.length, mByteDestination, 0);
+    }
+}
@@ -0,0 +1,300 @@
+package com.grishko188.library.vector;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatter;
+import com.grishko188.library.SlotClass;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Bulk clear for digit-only masks, which keeps ASCII digits of the source with vector compares of {@code jdk.incubator.vector}.
+ * <br/>Results are the same as {@link CompiledMask#clear(String)} results. Mask is digit-only if its slots accept all ASCII digits
+ * and no other ASCII chars, and its literals are not digits, like {@code "(###) ###-##-##"} with {@link MaskFormatter#useStandardSlots()}
+ * digit slots or {@code "0000 0000"}. Digits are copied a vector at a time, only positions of literals are walked against the mask,
+ * so sources with literals in unexpected places are still detected. If source can't be cleared by digits only
+ * (non-ASCII slot chars or mismatch with the mask), it is cleared by the mask.
+ * <br/>If {@code jdk.incubator.vector} module is not added to the runtime ({@code --add-modules jdk.incubator.vector}) or mask is not digit-only,
+ * all sources are cleared by the scalar engine of the mask. Metrics of the mask are reported only for the sources cleared by the mask.
+ * <pre>
+ * {@code
+ * DigitClear clear = DigitClear.of(MaskFormatter.get().mask("(000) 000-00-00").useStandardSlots().maskPrefix("+7 "));
+ * int length = clear.clearTo(line, 0, line.length, digits, 0);
+ * }
+ * </pre>
+ * Instances are safe to share between threads.
+ *
+ * @author Grishko Nikita
+ */
+public final class DigitClear {
+
+    private static final boolean VECTOR_AVAILABLE = isVectorAvailable();
+
+    private final CompiledMask mMask;
+    private final String mMaskPrefix;
+    private final char[] mMaskChars;
+    private final boolean[] mIsSlot;
+    /**
+     * Position of the first slot after every mask position, or -1 if there is no such slot
+     */
+    private final int[] mNextSlot;
+    private final boolean mIsVectorized;
+
+    public DigitClear(CompiledMask mask) {
+        mMask = Objects.requireNonNull(mask);
+        mMaskPrefix = mask.getMaskPrefix();
+        mMaskChars = mask.getMask() == null ? new char[0] : mask.getMask().toCharArray();
+        mIsSlot = new boolean[mMaskChars.length];
+        for (int slot = 0, prefixLength = mask.getPrefixLength(); slot < mask.getSlotCount(); slot++) {
+            mIsSlot[mask.toFormattedOffset(slot + 1) - prefixLength - 1] = true;
+        }
+        mNextSlot = new int[mMaskChars.length];
+        for (int position = mMaskChars.length - 1, next = -1; position >= 0; position--) {
+            mNextSlot[position] = next;
+            if (mIsSlot[position])
+                next = position;
+        }
+        mIsVectorized = VECTOR_AVAILABLE && isDigitOnly(mask);
+    }
+
+    public static DigitClear of(MaskFormatter formatter) {
+        return new DigitClear(formatter.build());
+    }
+
+    /**
+     * Returns true if vector module is available and vector lanes fit into bit masks
+     */
+    public static boolean isVectorAvailable() {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+            return false;
+        try {
+            return VectorDigits.CHAR_LANES > 1 && VectorDigits.CHAR_LANES <= Long.SIZE && VectorDigits.BYTE_LANES <= Long.SIZE;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    private boolean isDigitOnly(CompiledMask mask) {
+        if (mMaskChars.length == 0 || mask.getSlotCount() == 0)
+            return false;
+        for (int slot = 0; slot < mask.getSlotCount(); slot++) {
+            SlotClass slotClass = mask.getSlotClass(slot);
+            for (char symbol = '0'; symbol <= '9'; symbol++) {
+                if (!slotClass.accepts(symbol))
+                    return false;
+            }
+        }
+        for (char symbol = 0; symbol < 128; symbol++) {
+            if ((symbol < '0' || symbol > '9') && mask.accepts(symbol))
+                return false;
+        }
+        for (int position = 0; position < mMaskChars.length; position++) {
+            if (!mIsSlot[position] && mMaskChars[position] >= '0' && mMaskChars[position] <= '9')
+                return false;
+        }
+        return true;
+    }
+
+    public CompiledMask getMask() {
+        return mMask;
+    }
+
+    /**
+     * Returns true if sources are cleared with vector kernel, false if all of them are cleared by the mask
+     */
+    public boolean isVectorized() {
+        return mIsVectorized;
+    }
+
+    /**
+     * @see CompiledMask#clear(String)
+     */
+    public String clear(String source) {
+        if (!mIsVectorized || source == null || source.isEmpty())
+            return mMask.clear(source);
+        char[] chars = source.toCharArray();
+        // digits are never written ahead of the read position, so the array is cleared in place
+        int length = clearDigits(chars, 0, chars.length, chars, 0);
+        return length < 0 ? mMask.clear(source) : new String(chars, 0, length);
+    }
+
+    /**
+     * Writes source chars cleared with mask to destination, which must have space for all source chars and must not overlap the source
+     *
+     * @return count of written chars
+     * @see CompiledMask#clearTo(CharSequence, char[], int)
+     */
+    public int clearTo(char[] source, int offset, int length, char[] destination, int destinationOffset) {
+        if (destinationOffset < 0 || destination.length - destinationOffset < length)
+            throw new IndexOutOfBoundsException("Destination has no space for " + length + " chars at offset " + destinationOffset);
+        int cleared = mIsVectorized ? clearDigits(source, offset, length, destination, destinationOffset) : -1;
+        return cleared >= 0 ? cleared : mMask.clearTo(CharBuffer.wrap(source, offset, length), destination, destinationOffset);
+    }
+
+    /**
+     * Writes source cleared with mask to destination, bytes are ISO-8859-1 chars, like ASCII lines of batch files.
+     * Destination must have space for all source bytes and must not overlap the source
+     *
+     * @return count of written bytes
+     */
+    public int clearTo(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        if (destinationOffset < 0 || destination.length - destinationOffset < length)
+            throw new IndexOutOfBoundsException("Destination has no space for " + length + " bytes at offset " + destinationOffset);
+        int cleared = mIsVectorized ? clearDigits(source, offset, length, destination, destinationOffset) : -1;
+        if (cleared >= 0)
+            return cleared;
+
+        byte[] bytes = mMask.clear(new String(source, offset, length, StandardCharsets.ISO_8859_1)).getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(bytes, 0, destination, destinationOffset, bytes.length);
+        return bytes.length;
+    }
+
+    /**
+     * Copies ASCII digits after mask prefix and walks the other chars against the mask
+     *
+     * @return count of written digits, or -1 if source must be cleared by the mask
+     */
+    private int clearDigits(char[] source, int offset, int length, char[] destination, int destinationOffset) {
+        int end = offset + length;
+        int from = offset + prefixLength(source, offset, length);
+        int lanes = VectorDigits.CHAR_LANES;
+        long allLanes = lanes == Long.SIZE ? -1L : (1L << lanes) - 1;
+        int written = destinationOffset;
+        int position = 0;
+        int previous = from - 1;
+        int index = from;
+        for (; index + lanes <= end; index += lanes) {
+            long digits = VectorDigits.digits(source, index);
+            if (digits == allLanes) {
+                VectorDigits.copy(source, index, destination, written);
+                written += lanes;
+                continue;
+            }
+            for (long bits = ~digits & allLanes; bits != 0; bits &= bits - 1) {
+                int at = index + Long.numberOfTrailingZeros(bits);
+                position = walk(position, at - previous > 1, source[at]);
+                if (position < 0)
+                    return -1;
+                previous = at;
+            }
+            for (long bits = digits; bits != 0; bits &= bits - 1) {
+                destination[written++] = source[index + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        for (; index < end; index++) {
+            char symbol = source[index];
+            if (symbol >= '0' && symbol <= '9') {
+                destination[written++] = symbol;
+                continue;
+            }
+            position = walk(position, index - previous > 1, symbol);
+            if (position < 0)
+                return -1;
+            previous = index;
+        }
+        if (end - previous > 1 && walkDigits(position) < 0)
+            return -1;
+        return written - destinationOffset;
+    }
+
+    /**
+     * Same as {@link #clearDigits(char[], int, int, char[], int)} for ISO-8859-1 bytes
+     */
+    private int clearDigits(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        int end = offset + length;
+        int from = offset + prefixLength(source, offset, length);
+        int lanes = VectorDigits.BYTE_LANES;
+        long allLanes = lanes == Long.SIZE ? -1L : (1L << lanes) - 1;
+        int written = destinationOffset;
+        int position = 0;
+        int previous = from - 1;
+        int index = from;
+        for (; index + lanes <= end; index += lanes) {
+            long digits = VectorDigits.digits(source, index);
+            if (digits == allLanes) {
+                VectorDigits.copy(source, index, destination, written);
+                written += lanes;
+                continue;
+            }
+            for (long bits = ~digits & allLanes; bits != 0; bits &= bits - 1) {
+                int at = index + Long.numberOfTrailingZeros(bits);
+                position = walk(position, at - previous > 1, (char) (source[at] & 0xFF));
+                if (position < 0)
+                    return -1;
+                previous = at;
+            }
+            for (long bits = digits; bits != 0; bits &= bits - 1) {
+                destination[written++] = source[index + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        for (; index < end; index++) {
+            byte symbol = source[index];
+            if (symbol >= '0' && symbol <= '9') {
+                destination[written++] = symbol;
+                continue;
+            }
+            position = walk(position, index - previous > 1, (char) (symbol & 0xFF));
+            if (position < 0)
+                return -1;
+            previous = index;
+        }
+        if (end - previous > 1 && walkDigits(position) < 0)
+            return -1;
+        return written - destinationOffset;
+    }
+
+    /**
+     * Moves clear walk from mask position by non-digit symbol, like {@link CompiledMask#clear(String)} moves between mask elements
+     *
+     * @param hasDigitsBefore true if there are digits between the previous non-digit and the symbol
+     * @return new mask position, or -1 if the symbol doesn't match the mask
+     */
+    private int walk(int position, boolean hasDigitsBefore, char symbol) {
+        if (hasDigitsBefore) {
+            position = walkDigits(position);
+            if (position < 0)
+                return -1;
+        }
+        if (symbol >= 128 && mMask.accepts(symbol))
+            return -1;
+        if (!mIsSlot[position] && mMaskChars[position] == symbol)
+            return position;
+        for (int next = position + 1; next < mMaskChars.length; next++) {
+            if (!mIsSlot[next] && mMaskChars[next] == symbol)
+                return next;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves clear walk from mask position by digits: slot keeps taking them, literal is followed by the next slot
+     */
+    private int walkDigits(int position) {
+        return mIsSlot[position] ? position : mNextSlot[position];
+    }
+
+    private int prefixLength(char[] source, int offset, int length) {
+        if (mMaskPrefix == null)
+            return 0;
+        int prefixLength = mMaskPrefix.length();
+        int count = Math.min(length, prefixLength);
+        for (int i = 0; i < count; i++) {
+            if (source[offset + i] != mMaskPrefix.charAt(i))
+                return 0;
+        }
+        return count;
+    }
+
+    private int prefixLength(byte[] source, int offset, int length) {
+        if (mMaskPrefix == null)
+            return 0;
+        int prefixLength = mMaskPrefix.length();
+        int count = Math.min(length, prefixLength);
+        for (int i = 0; i < count; i++) {
+            if ((source[offset + i] & 0xFF) != mMaskPrefix.charAt(i))
+                return 0;
+        }
+        return count;
+    }
+}
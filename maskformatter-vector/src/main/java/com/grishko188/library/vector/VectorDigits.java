@@ -0,0 +1,62 @@
+package com.grishko188.library.vector;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector kernels finding ASCII digits in chars and bytes, one preferred vector of lanes at a time.
+ * <br/>Loading this class fails with {@link LinkageError} if {@code jdk.incubator.vector} module is not added to the runtime.
+ *
+ * @author Grishko Nikita
+ */
+final class VectorDigits {
+
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * Count of chars and bytes checked by one call
+     */
+    static final int CHAR_LANES = CHARS.length();
+    static final int BYTE_LANES = BYTES.length();
+
+    private VectorDigits() {
+    }
+
+    /**
+     * Returns bits of lanes holding ASCII digits, {@link #CHAR_LANES} chars starting from index must be available
+     */
+    static long digits(char[] source, int index) {
+        ShortVector chars = ShortVector.fromCharArray(CHARS, source, index);
+        VectorMask<Short> digits = chars.compare(VectorOperators.GE, (short) '0')
+                .and(chars.compare(VectorOperators.LE, (short) '9'));
+        return digits.toLong();
+    }
+
+    /**
+     * Copies {@link #CHAR_LANES} chars starting from index, used when all of them are digits
+     */
+    static void copy(char[] source, int index, char[] destination, int offset) {
+        ShortVector.fromCharArray(CHARS, source, index).intoCharArray(destination, offset);
+    }
+
+    /**
+     * Returns bits of lanes holding ASCII digits, {@link #BYTE_LANES} bytes starting from index must be available
+     */
+    static long digits(byte[] source, int index) {
+        ByteVector bytes = ByteVector.fromArray(BYTES, source, index);
+        VectorMask<Byte> digits = bytes.compare(VectorOperators.GE, (byte) '0')
+                .and(bytes.compare(VectorOperators.LE, (byte) '9'));
+        return digits.toLong();
+    }
+
+    /**
+     * Copies {@link #BYTE_LANES} bytes starting from index, used when all of them are digits
+     */
+    static void copy(byte[] source, int index, byte[] destination, int offset) {
+        ByteVector.fromArray(BYTES, source, index).intoArray(destination, offset);
+    }
+}
@@ -0,0 +1,70 @@
+package com.grishko188.library.vector;
+
+import com.grishko188.library.CompiledMask;
+import com.grishko188.library.MaskFormatter;
+import com.grishko188.library.SlotClass;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DigitClearTest {
+
+    private static final MaskFormatter[] FORMATTERS = {
+            MaskFormatter.get().mask("(000) 000-00-00").useStandardSlots().maskPrefix("+7 ").ignoreInputPrefixes("+7", "8"),
+            MaskFormatter.get().mask("0000 0000 0000 0000 000").useStandardSlots(),
+            MaskFormatter.get().mask("№ DD DD-DD").slot('D', SlotClass.DIGIT),
+            MaskFormatter.get().mask("(###) ###-##-##").maskPrefix("+7 ")
+    };
+
+    private static final String ALPHABET = "0123456789000000000000 +7()--№8aZ٣";
+
+    @Test
+    public void test_sameResultsAsMask() {
+        Random random = new Random(42);
+        for (MaskFormatter formatter : FORMATTERS) {
+            CompiledMask mask = formatter.build();
+            DigitClear clear = new DigitClear(mask);
+            for (int i = 0; i < 20000; i++) {
+                String source = random.nextBoolean() ? randomSource(random) : mask.format(randomSource(random));
+                String expected = mask.clear(source);
+                assertEquals(source, expected, clear.clear(source));
+
+                char[] chars = source.toCharArray();
+                char[] destination = new char[chars.length + 2];
+                int length = clear.clearTo(chars, 0, chars.length, destination, 2);
+                assertEquals(source, expected, new String(destination, 2, length));
+
+                byte[] bytes = source.getBytes(StandardCharsets.ISO_8859_1);
+                byte[] clearedBytes = new byte[bytes.length];
+                length = clear.clearTo(bytes, 0, bytes.length, clearedBytes, 0);
+                assertEquals(source, mask.clear(new String(bytes, StandardCharsets.ISO_8859_1)),
+                        new String(clearedBytes, 0, length, StandardCharsets.ISO_8859_1));
+            }
+        }
+    }
+
+    private static String randomSource(Random random) {
+        StringBuilder source = new StringBuilder();
+        for (int i = random.nextInt(80); i > 0; i--) {
+            source.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return source.toString();
+    }
+
+    @Test
+    public void test_digitOnlyMasks() {
+        assertEquals(DigitClear.isVectorAvailable(), DigitClear.of(FORMATTERS[0]).isVectorized());
+        assertEquals(DigitClear.isVectorAvailable(), DigitClear.of(FORMATTERS[2]).isVectorized());
+        assertFalse(DigitClear.of(FORMATTERS[3]).isVectorized());
+        assertFalse(DigitClear.of(MaskFormatter.get().mask("+7 (000) 000").useStandardSlots()).isVectorized());
+
+        DigitClear clear = DigitClear.of(FORMATTERS[0]);
+        assertEquals("9307920000", clear.clear("+7 (930) 792-00-00"));
+        assertEquals(clear.getMask().clear("+7 (930) 792-00-00 (1)"), clear.clear("+7 (930) 792-00-00 (1)"));
+    }
+}